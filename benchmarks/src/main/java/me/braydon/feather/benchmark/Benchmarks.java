@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.benchmark;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Runs the benchmarks with the {@link GCProfiler}
+ * attached, so allocation rates are reported
+ * alongside throughput.
+ * <p>
+ * Build with {@code mvn package} in this module, after
+ * installing Feather with {@code mvn install} from the
+ * project root, then run {@code java -jar target/benchmarks.jar}.
+ * Any JMH command line options, such as a benchmark
+ * name filter, are passed through, and listing options
+ * such as {@code -l} or {@code -h} are handled by JMH.
+ * </p>
+ *
+ * @author Braydon
+ */
+public final class Benchmarks {
+    public static void main(String[] args) throws CommandLineOptionException, IOException, RunnerException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp() || options.shouldList() || options.shouldListWithParams()
+                || options.shouldListProfilers() || options.shouldListResultFormats()) { // Not a run, let JMH handle it
+            Main.main(args);
+            return;
+        }
+        new Runner(new OptionsBuilder()
+                       .parent(options)
+                       .addProfiler(GCProfiler.class)
+                       .build()).run();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.benchmark;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import me.braydon.feather.benchmark.model.NestedEntity;
+import me.braydon.feather.benchmark.model.SmallEntity;
+import me.braydon.feather.benchmark.model.WideEntity;
+
+import java.util.function.IntFunction;
+
+/**
+ * The shapes of entity to benchmark.
+ *
+ * @author Braydon
+ */
+@AllArgsConstructor @Getter
+public enum EntityShape {
+    /**
+     * A few flat fields.
+     */
+    SMALL(SmallEntity.class, SmallEntity::create),
+    
+    /**
+     * Many flat fields of mixed types.
+     */
+    WIDE(WideEntity.class, WideEntity::create),
+    
+    /**
+     * Nested serializable objects.
+     */
+    NESTED(NestedEntity.class, NestedEntity::create);
+    
+    /**
+     * The class of the entity.
+     */
+    @NonNull private final Class<?> entityClass;
+    
+    /**
+     * The factory creating entities from a seed.
+     */
+    @NonNull private final IntFunction<Object> factory;
+    
+    /**
+     * Create a new entity of this shape.
+     *
+     * @param seed the seed to derive values from
+     * @return the created entity
+     */
+    @NonNull
+    public Object create(int seed) {
+        return factory.apply(seed);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.benchmark;
+
+import me.braydon.feather.data.Document;
+import me.braydon.feather.database.Repository;
+import me.braydon.feather.database.RepositoryAccess;
+import me.braydon.feather.database.impl.redis.Redis;
+import me.braydon.feather.database.impl.redis.RedisRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks mapping entities to and from {@link Document}'s.
+ *
+ * @author Braydon
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput) @OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2) @Measurement(iterations = 5, time = 2) @Fork(1)
+public class MappingBenchmark {
+    @Param({ "SMALL", "WIDE", "NESTED" }) public EntityShape shape;
+    
+    /**
+     * The entity to map.
+     */
+    private Object entity;
+    
+    /**
+     * A document created from the entity.
+     */
+    private Document<Object> document;
+    
+    /**
+     * The mapped data of the entity, copied
+     * so it's detached from the document.
+     */
+    private Map<String, Object> mappedData;
+    
+    /**
+     * The repository to construct entities with, never connected.
+     */
+    private Repository<?, ?, Object> repository;
+    
+    @Setup
+    public void setup() {
+        entity = shape.create(42);
+        document = new Document<>(entity);
+        mappedData = new HashMap<>(document.toMappedData());
+        repository = new RedisRepository<>(new Redis(), shape.getEntityClass(), "benchmark");
+    }
+    
+    @Benchmark
+    public Document<Object> newDocument() {
+        return new Document<>(entity);
+    }
+    
+    @Benchmark
+    public void toMappedData(Blackhole blackhole) {
+        for (Map.Entry<String, Object> entry : document.toMappedData().entrySet()) {
+            blackhole.consume(entry.getKey());
+            blackhole.consume(entry.getValue());
+        }
+    }
+    
+    @Benchmark
+    public Object newEntity() {
+        return RepositoryAccess.newEntity(repository, mappedData);
+    }
+}
\ No newline at end of file
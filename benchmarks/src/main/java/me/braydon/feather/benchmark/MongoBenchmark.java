@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.benchmark;
+
+import com.mongodb.ConnectionString;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import me.braydon.feather.database.impl.mongodb.MongoDB;
+import me.braydon.feather.database.impl.mongodb.MongoRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link MongoRepository} round-trips
+ * against an in-memory MongoDB wire protocol server.
+ * <p>
+ * The stand-in has no real storage engine, so these
+ * results show the client-side overhead, not
+ * production latency.
+ * </p>
+ *
+ * @author Braydon
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput) @OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2) @Measurement(iterations = 5, time = 2) @Fork(1)
+public class MongoBenchmark {
+    @Param({ "SMALL", "WIDE", "NESTED" }) public EntityShape shape;
+    @Param({ "100", "1000" }) public int entityCount;
+    
+    /**
+     * The in-memory MongoDB server.
+     */
+    private MongoServer server;
+    
+    /**
+     * The database connected to the server.
+     */
+    private MongoDB mongo;
+    
+    /**
+     * The repository to benchmark.
+     */
+    private MongoRepository<Object, Object> repository;
+    
+    /**
+     * The entities to save.
+     */
+    private Object[] entities;
+    
+    @Setup
+    public void setup() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        mongo = new MongoDB();
+        mongo.connect(new ConnectionString("mongodb://" + address.getHostString() + ":" + address.getPort() + "/benchmark"));
+        repository = mongo.newRepository(shape.name().toLowerCase(), shape.getEntityClass());
+        entities = new Object[entityCount];
+        for (int i = 0; i < entityCount; i++) {
+            entities[i] = shape.create(i);
+        }
+        repository.saveAll(entities); // Seed the entities for findAll
+    }
+    
+    @TearDown
+    public void tearDown() {
+        mongo.close();
+        server.shutdownNow();
+    }
+    
+    @Benchmark
+    public void saveAll() {
+        repository.saveAll(entities);
+    }
+    
+    @Benchmark
+    public List<Object> findAll() {
+        return repository.findAll();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.benchmark;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.lettuce.core.RedisURI;
+import me.braydon.feather.benchmark.model.NestedEntity;
+import me.braydon.feather.database.impl.redis.Redis;
+import me.braydon.feather.database.impl.redis.RedisRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link RedisRepository} round-trips
+ * against an in-process Redis protocol server.
+ * <p>
+ * Redis stores hash fields as strings, so the nested
+ * entity is used, as it only holds strings and
+ * serializable fields. The stand-in has no real
+ * network or server cost, so these results show the
+ * client-side overhead, not production latency.
+ * </p>
+ *
+ * @author Braydon
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput) @OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2) @Measurement(iterations = 5, time = 2) @Fork(1)
+public class RedisBenchmark {
+    @Param({ "100", "1000" }) public int entityCount;
+    
+    /**
+     * The in-process Redis server.
+     */
+    private RedisServer server;
+    
+    /**
+     * The database connected to the server.
+     */
+    private Redis redis;
+    
+    /**
+     * The repository to benchmark.
+     */
+    private RedisRepository<String, NestedEntity> repository;
+    
+    /**
+     * The entities to save.
+     */
+    private NestedEntity[] entities;
+    
+    @Setup
+    public void setup() throws IOException {
+        server = RedisServer.newRedisServer();
+        server.start();
+        redis = new Redis();
+        redis.connect(RedisURI.create(server.getHost(), server.getBindPort()));
+        repository = redis.newRepository(NestedEntity.class, "benchmark");
+        entities = new NestedEntity[entityCount];
+        for (int i = 0; i < entityCount; i++) {
+            entities[i] = NestedEntity.create(i);
+        }
+        repository.saveAll(entities); // Seed the entities for findAll
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        redis.close();
+        server.stop();
+    }
+    
+    @Benchmark
+    public void saveAll() {
+        repository.saveAll(entities);
+    }
+    
+    @Benchmark
+    public List<NestedEntity> findAll() {
+        return repository.findAll();
+    }
+}
\ No newline at end of file
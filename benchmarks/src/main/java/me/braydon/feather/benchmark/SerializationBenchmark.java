@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.benchmark;
+
+import com.google.gson.reflect.TypeToken;
+import me.braydon.feather.annotation.Serializable;
+import me.braydon.feather.benchmark.model.NestedEntity;
+import me.braydon.feather.serialization.GsonSerializer;
+import me.braydon.feather.serialization.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks round-trips of {@link Serializable} values.
+ *
+ * @author Braydon
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput) @OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2) @Measurement(iterations = 5, time = 2) @Fork(1)
+public class SerializationBenchmark {
+    /**
+     * The type of the serialized value.
+     */
+    private static final Type HISTORY_TYPE = new TypeToken<List<NestedEntity.Profile>>() {}.getType();
+    
+    /**
+     * The serializer to benchmark.
+     */
+    private Serializer serializer;
+    
+    /**
+     * The value to serialize.
+     */
+    private List<NestedEntity.Profile> history;
+    
+    /**
+     * The value in its serialized form.
+     */
+    private String serialized;
+    
+    @Setup
+    public void setup() {
+        serializer = new GsonSerializer();
+        history = NestedEntity.create(42).getHistory();
+        serialized = serializer.serialize(history);
+    }
+    
+    @Benchmark
+    public String serialize() {
+        return serializer.serialize(history);
+    }
+    
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(serialized, HISTORY_TYPE);
+    }
+    
+    @Benchmark
+    public Object roundTrip() {
+        return serializer.deserialize(serializer.serialize(history), HISTORY_TYPE);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.benchmark.model;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import me.braydon.feather.annotation.Field;
+import me.braydon.feather.annotation.Id;
+import me.braydon.feather.annotation.Serializable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An entity with nested {@link Serializable} objects.
+ *
+ * @author Braydon
+ */
+@Getter @ToString
+public final class NestedEntity {
+    @Id @Field private String id;
+    @Field private String name;
+    @Field @Serializable private Profile profile;
+    @Field @Serializable private List<Profile> history;
+    
+    /**
+     * Create a new entity filled with values derived from the given seed.
+     *
+     * @param seed the seed to derive values from
+     * @return the created entity
+     */
+    @NonNull
+    public static NestedEntity create(int seed) {
+        NestedEntity entity = new NestedEntity();
+        entity.id = "nested-" + seed;
+        entity.name = "Player" + seed;
+        entity.profile = Profile.create(seed);
+        entity.history = new ArrayList<>();
+        for (int i = 1; i <= 8; i++) {
+            entity.history.add(Profile.create(seed * i));
+        }
+        return entity;
+    }
+    
+    /**
+     * A nested profile.
+     */
+    @Getter @ToString
+    public static final class Profile {
+        private String displayName;
+        private long createdAt;
+        private List<String> tags;
+        private Map<String, Integer> stats;
+        
+        /**
+         * Create a new profile filled with values derived from the given seed.
+         *
+         * @param seed the seed to derive values from
+         * @return the created profile
+         */
+        @NonNull
+        public static Profile create(int seed) {
+            Profile profile = new Profile();
+            profile.displayName = "Display " + seed;
+            profile.createdAt = 1_700_000_000_000L + seed;
+            profile.tags = Arrays.asList("tag" + seed % 7, "tag" + seed % 11, "tag" + seed % 13);
+            profile.stats = new LinkedHashMap<>();
+            profile.stats.put("kills", seed % 97);
+            profile.stats.put("deaths", seed % 89);
+            profile.stats.put("wins", seed % 83);
+            return profile;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.benchmark.model;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import me.braydon.feather.annotation.Field;
+import me.braydon.feather.annotation.Id;
+
+import java.util.UUID;
+
+/**
+ * A small entity with only a few fields.
+ *
+ * @author Braydon
+ */
+@Getter @ToString
+public final class SmallEntity {
+    @Id @Field private UUID id;
+    @Field private String name;
+    @Field private int score;
+    
+    /**
+     * Create a new entity filled with values derived from the given seed.
+     *
+     * @param seed the seed to derive values from
+     * @return the created entity
+     */
+    @NonNull
+    public static SmallEntity create(int seed) {
+        SmallEntity entity = new SmallEntity();
+        entity.id = new UUID(seed, seed);
+        entity.name = "Player" + seed;
+        entity.score = seed * 31;
+        return entity;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.benchmark.model;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import me.braydon.feather.annotation.Field;
+import me.braydon.feather.annotation.Id;
+
+/**
+ * A wide entity with many flat fields of mixed types.
+ *
+ * @author Braydon
+ */
+@Getter @ToString
+public final class WideEntity {
+    @Id @Field private String id;
+    @Field private int field1;
+    @Field private long field2;
+    @Field private double field3;
+    @Field private boolean field4;
+    @Field private String field5;
+    @Field private int field6;
+    @Field private long field7;
+    @Field private double field8;
+    @Field private boolean field9;
+    @Field private String field10;
+    @Field private int field11;
+    @Field private long field12;
+    @Field private double field13;
+    @Field private boolean field14;
+    @Field private String field15;
+    @Field private int field16;
+    @Field private long field17;
+    @Field private double field18;
+    @Field private boolean field19;
+    @Field private String field20;
+    @Field private int field21;
+    @Field private long field22;
+    @Field private double field23;
+    @Field private boolean field24;
+    
+    /**
+     * Create a new entity filled with values derived from the given seed.
+     *
+     * @param seed the seed to derive values from
+     * @return the created entity
+     */
+    @NonNull
+    public static WideEntity create(int seed) {
+        WideEntity entity = new WideEntity();
+        entity.id = "wide-" + seed;
+        entity.field1 = seed + 1;
+        entity.field2 = seed * 2L;
+        entity.field3 = seed / 3.0D;
+        entity.field4 = (seed + 4) % 2 == 0;
+        entity.field5 = "value" + seed + "-5";
+        entity.field6 = seed + 6;
+        entity.field7 = seed * 7L;
+        entity.field8 = seed / 8.0D;
+        entity.field9 = (seed + 9) % 2 == 0;
+        entity.field10 = "value" + seed + "-10";
+        entity.field11 = seed + 11;
+        entity.field12 = seed * 12L;
+        entity.field13 = seed / 13.0D;
+        entity.field14 = (seed + 14) % 2 == 0;
+        entity.field15 = "value" + seed + "-15";
+        entity.field16 = seed + 16;
+        entity.field17 = seed * 17L;
+        entity.field18 = seed / 18.0D;
+        entity.field19 = (seed + 19) % 2 == 0;
+        entity.field20 = "value" + seed + "-20";
+        entity.field21 = seed + 21;
+        entity.field22 = seed * 22L;
+        entity.field23 = seed / 23.0D;
+        entity.field24 = (seed + 24) % 2 == 0;
+        return entity;
+    }
+}
\ No newline at end of file
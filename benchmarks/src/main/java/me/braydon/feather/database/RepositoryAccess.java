@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database;
+
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+import java.util.Map;
+
+/**
+ * Exposes the protected mapping methods of a
+ * {@link Repository} to the benchmarks.
+ *
+ * @author Braydon
+ */
+@UtilityClass
+public final class RepositoryAccess {
+    /**
+     * Construct a new entity from the given mapped data.
+     *
+     * @param repository the repository to construct the entity with
+     * @param mappedData the mapped data to parse
+     * @param <E> the entity type
+     * @return the created entity
+     * @see Repository#newEntity(Map) for mapping
+     */
+    public static <E> E newEntity(@NonNull Repository<?, ?, E> repository, @NonNull Map<String, ?> mappedData) {
+        return repository.newEntity(mappedData);
+    }
+}
\ No newline at end of file
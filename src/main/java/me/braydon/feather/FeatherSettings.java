@@ -8,7 +8,11 @@ package me.braydon.feather;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.Setter;
+import me.braydon.feather.annotation.Serializable;
+import me.braydon.feather.serialization.GsonSerializer;
+import me.braydon.feather.serialization.Serializer;
 
 /**
  * Settings for feather, modify these as you wish!
@@ -22,4 +26,19 @@ public final class FeatherSettings {
     @Setter @Getter private static Gson gson = new GsonBuilder()
                                                    .serializeNulls()
                                                    .create();
+    
+    /**
+     * The {@link Serializer} to use for {@link Serializable} fields.
+     */
+    @Setter @Getter @NonNull private static Serializer serializer = new GsonSerializer();
+    
+    /**
+     * Whether {@link Serializable} fields should be stored
+     * as native BSON subdocuments within MongoDB, rather
+     * than as serialized strings.
+     * <p>
+     * Fields stored as strings are still read either way.
+     * </p>
+     */
+    @Setter @Getter private static boolean nativeMongoDocuments;
 }
\ No newline at end of file
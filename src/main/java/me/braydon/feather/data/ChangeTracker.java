@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.data;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Tracks the changes made to loaded entities.
+ * <p>
+ * A snapshot of the stored form of every field is taken
+ * when an entity is loaded, and compared against the
+ * entity when it's saved, so only the changed fields
+ * have to be written. Snapshots are keyed by entity
+ * identity and held weakly, they're dropped once the
+ * entity is no longer referenced.
+ * </p>
+ *
+ * @author Braydon
+ * @param <E> the entity type
+ */
+@ThreadSafe
+public final class ChangeTracker<E> {
+    /**
+     * The metadata of the tracked entities.
+     */
+    @NonNull private final EntityMetadata<E> metadata;
+    
+    /**
+     * The snapshots of the tracked entities, keyed by entity identity.
+     */
+    @NonNull private final Cache<Object, Object[]> snapshots = CacheBuilder.newBuilder().weakKeys().build();
+    
+    public ChangeTracker(@NonNull EntityMetadata<E> metadata) {
+        this.metadata = metadata;
+    }
+    
+    /**
+     * Take a snapshot of the given entity,
+     * replacing any previous snapshot.
+     *
+     * @param entity the entity to snapshot
+     * @see E for entity
+     */
+    public void track(@NonNull E entity) {
+        List<EntityMetadata.EntityField> fields = metadata.getFields();
+        Object[] snapshot = new Object[fields.size()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = fields.get(i).read(entity);
+        }
+        snapshots.put(entity, snapshot);
+    }
+    
+    /**
+     * Stop tracking the given entity.
+     *
+     * @param entity the entity to stop tracking
+     * @see E for entity
+     */
+    public void forget(@NonNull E entity) {
+        snapshots.invalidate(entity);
+    }
+    
+    /**
+     * Get the changes made to the given
+     * entity since it was last tracked.
+     * <p>
+     * Whole number fields that changed from one
+     * value to another are reported as increments,
+     * so they can be applied atomically, unless the
+     * difference doesn't fit within the field type.
+     * </p>
+     *
+     * @param entity the entity to diff
+     * @return the changes, null if the entity isn't tracked
+     * @see E for entity
+     */
+    public ChangeSet diff(@NonNull E entity) {
+        Object[] snapshot = snapshots.getIfPresent(entity);
+        if (snapshot == null) { // Not tracked, it has to be written in full
+            return null;
+        }
+        Map<String, Object> updated = new LinkedHashMap<>(); // The changed fields
+        Map<String, Long> increments = new LinkedHashMap<>(); // The changed whole number fields
+        for (EntityMetadata.EntityField field : metadata.getFields()) {
+            Object previous = snapshot[field.getIndex()];
+            Object current = field.read(entity);
+            if (Objects.deepEquals(previous, current)) { // Unchanged
+                continue;
+            }
+            long delta = isWholeNumber(previous) && isWholeNumber(current) ? ((Number) current).longValue() - ((Number) previous).longValue() : 0L;
+            if (delta != 0L && field.fitsIncrement(delta)) { // An increment that the field type can hold
+                increments.put(field.getKey(), delta);
+            } else {
+                updated.put(field.getKey(), current);
+            }
+        }
+        return new ChangeSet(Collections.unmodifiableMap(updated), Collections.unmodifiableMap(increments));
+    }
+    
+    /**
+     * Check if the given value is a whole number.
+     *
+     * @param value the value to check
+     * @return whether the value is a whole number
+     */
+    private static boolean isWholeNumber(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+    }
+    
+    /**
+     * The changes made to a tracked entity.
+     */
+    @AllArgsConstructor @Getter @ToString
+    public static final class ChangeSet {
+        /**
+         * The stored form of the changed fields, keyed by field key.
+         */
+        @NonNull private final Map<String, Object> updated;
+        
+        /**
+         * The amount to increment changed whole number fields by, keyed by field key.
+         */
+        @NonNull private final Map<String, Long> increments;
+        
+        /**
+         * Check if nothing has changed.
+         *
+         * @return whether nothing has changed
+         */
+        public boolean isEmpty() {
+            return updated.isEmpty() && increments.isEmpty();
+        }
+    }
+}
\ No newline at end of file
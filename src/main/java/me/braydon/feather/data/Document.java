@@ -5,22 +5,20 @@
  */
 package me.braydon.feather.data;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.ToString;
-import me.braydon.feather.FeatherSettings;
-import me.braydon.feather.annotation.Field;
-import me.braydon.feather.annotation.Id;
-import me.braydon.feather.annotation.Serializable;
-import me.braydon.feather.common.FieldUtils;
-import me.braydon.feather.common.Tuple;
 import me.braydon.feather.database.IDatabase;
 
 import javax.annotation.concurrent.ThreadSafe;
-import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * A document is a key-value pair that is stored within
@@ -33,6 +31,11 @@ import java.util.UUID;
  */
 @ThreadSafe @Getter @ToString
 public class Document<V> {
+    /**
+     * The metadata of the entity this document was created from.
+     */
+    @NonNull @ToString.Exclude private final EntityMetadata<?> metadata;
+    
     /**
      * The key to use for the id field.
      */
@@ -44,70 +47,123 @@ public class Document<V> {
     @NonNull private final Object key;
     
     /**
-     * The mapped data of this document.
+     * The values of this document.
      * <p>
-     * The key of this key-value pair is the identifier
-     * for the field within this document. The value is
-     * a tuple that contains the Java field, as well as
-     * the field value.
+     * Values are stored in the same order as the
+     * fields within the {@link EntityMetadata}, so
+     * the value at a given index belongs to the
+     * field at that same index.
      * </p>
      *
      * @see V for value type
      */
-    private final Map<String, Tuple<java.lang.reflect.Field, V>> mappedData = Collections.synchronizedMap(new LinkedHashMap<>());
+    @Getter(AccessLevel.NONE) @ToString.Exclude private final Object[] values;
+    
+    /**
+     * A read-only view of the mapped data of this document.
+     *
+     * @see #toMappedData() for the view
+     */
+    @Getter(AccessLevel.NONE) private final Map<String, V> mappedData = new MappedDataView();
     
     public Document(@NonNull Object element) {
-        Class<?> clazz = element.getClass(); // Get the element class
-        String idKey = null; // The key for the id field
-        for (java.lang.reflect.Field field : clazz.getDeclaredFields()) {
-            // Field is missing the @Field annotation, skip it
-            if (!field.isAnnotationPresent(Field.class)) {
-                continue;
-            }
-            field.setAccessible(true); // Make our field accessible
-            String key = FieldUtils.extractKey(field); // The key of the database field
-            
-            // The field is annotated with @Id, save it for later
-            if (field.isAnnotationPresent(Id.class)) {
-                idKey = key;
-            }
-            Class<?> fieldType = field.getType(); // The type of the field
-            try {
-                Object value = field.get(element); // The value of the field
-                
-                if (field.isAnnotationPresent(Serializable.class)) { // Serialize the field if @Serializable is present
-                    value = FeatherSettings.getGson().toJson(field.get(element));
-                } else if (fieldType == UUID.class) { // Convert UUIDs into strings
-                    value = value.toString();
-                }
-                
-                mappedData.put(key, new Tuple<>(field, (V) value)); // Store in our map
-            } catch (IllegalAccessException ex) {
-                throw new RuntimeException(ex);
-            }
+        metadata = EntityMetadata.of(element.getClass()); // Get the cached metadata for the element
+        EntityMetadata.EntityField idField = metadata.getIdField(); // The field annotated with @Id
+        if (idField == null) { // The element is missing an id field
+            throw new IllegalArgumentException("No @Id annotated field found in " + element.getClass().getSimpleName());
         }
-        assert idKey != null; // We need an id key
-        this.idKey = idKey; // Set our id key
+        idKey = idField.getKey(); // Set our id key
         
-        Tuple<java.lang.reflect.Field, V> key = mappedData.get(idKey); // Get the id from the data map
-        if (key == null) { // The element is missing an id field
-            throw new IllegalArgumentException("No @Id annotated field found in " + clazz.getSimpleName());
+        List<EntityMetadata.EntityField> fields = metadata.getFields();
+        values = new Object[fields.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = fields.get(i).read(element); // Store the stored form of the field value
         }
-        this.key = key.getRight();
+        key = values[idField.getIndex()];
     }
     
     /**
-     * Turn this document into a map.
+     * Get the value for the given key.
+     *
+     * @param key the key of the field
+     * @return the value, null if none
+     * @see V for value type
+     */
+    @SuppressWarnings("unchecked")
+    public V get(@NonNull String key) {
+        EntityMetadata.EntityField field = metadata.getField(key);
+        return field == null ? null : (V) values[field.getIndex()];
+    }
+    
+    /**
+     * Get a read-only map view of this document.
+     * <p>
+     * The view is backed directly by this document,
+     * no data is copied. Iteration follows the
+     * declaration order of the entity fields.
+     * </p>
      *
      * @return the mapped data
-     * @see #mappedData for stored data
+     * @see #values for stored data
      */
     @NonNull
     public Map<String, V> toMappedData() {
-        Map<String, V> mappedData = new LinkedHashMap<>(); // The mapped data
-        for (Map.Entry<String, Tuple<java.lang.reflect.Field, V>> entry : this.mappedData.entrySet()) {
-            mappedData.put(entry.getKey(), entry.getValue().getRight());
-        }
         return mappedData;
     }
+    
+    /**
+     * A read-only {@link Map} view over the values of this document.
+     */
+    private final class MappedDataView extends AbstractMap<String, V> {
+        /**
+         * The entries of this view.
+         */
+        private final Set<Map.Entry<String, V>> entrySet = new AbstractSet<Map.Entry<String, V>>() {
+            @Override
+            public Iterator<Map.Entry<String, V>> iterator() {
+                return new Iterator<Map.Entry<String, V>>() {
+                    private int index;
+                    
+                    @Override
+                    public boolean hasNext() {
+                        return index < values.length;
+                    }
+                    
+                    @Override @SuppressWarnings("unchecked")
+                    public Map.Entry<String, V> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        String key = metadata.getFields().get(index).getKey();
+                        return new AbstractMap.SimpleImmutableEntry<>(key, (V) values[index++]);
+                    }
+                };
+            }
+            
+            @Override
+            public int size() {
+                return values.length;
+            }
+        };
+        
+        @Override
+        public Set<Map.Entry<String, V>> entrySet() {
+            return entrySet;
+        }
+        
+        @Override
+        public int size() {
+            return values.length;
+        }
+        
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && metadata.getField((String) key) != null;
+        }
+        
+        @Override
+        public V get(Object key) {
+            return key instanceof String ? Document.this.get((String) key) : null;
+        }
+    }
 }
\ No newline at end of file
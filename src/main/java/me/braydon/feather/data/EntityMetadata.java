@@ -0,0 +1,380 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.data;
+
+import com.google.common.primitives.Primitives;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import me.braydon.feather.FeatherSettings;
+import me.braydon.feather.annotation.Field;
+import me.braydon.feather.annotation.Id;
+import me.braydon.feather.annotation.Serializable;
+import me.braydon.feather.common.FieldUtils;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The resolved metadata for an entity class.
+ * <p>
+ * Metadata is built once per class, the first time
+ * it is requested, and then cached. This saves us
+ * from scanning annotations and resolving keys
+ * every time an entity is read or written.
+ * </p>
+ *
+ * @author Braydon
+ * @param <E> the entity type
+ */
+@ThreadSafe @Getter @ToString
+public final class EntityMetadata<E> {
+    /**
+     * The cached metadata, keyed by entity class.
+     */
+    private static final Map<Class<?>, EntityMetadata<?>> CACHE = new ConcurrentHashMap<>();
+    
+    /**
+     * The class of the entity.
+     */
+    @NonNull private final Class<E> entityClass;
+    
+    /**
+     * The no args constructor of the entity, null if none.
+     */
+    @Getter(AccessLevel.NONE) @ToString.Exclude private final Constructor<E> constructor;
+    
+    /**
+     * The fields tagged with {@link Field}, in declaration order.
+     */
+    @NonNull private final List<EntityField> fields;
+    
+    /**
+     * The fields tagged with {@link Field}, keyed by their database key.
+     */
+    @Getter(AccessLevel.NONE) @ToString.Exclude private final Map<String, EntityField> fieldsByKey;
+    
+    /**
+     * The field tagged with {@link Id}, null if none.
+     */
+    private final EntityField idField;
+    
+    private EntityMetadata(@NonNull Class<E> entityClass) {
+        this.entityClass = entityClass;
+        
+        Constructor<E> constructor = null; // The no args constructor
+        try {
+            constructor = entityClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException ignored) {
+            // We'll complain about this when an entity is constructed
+        }
+        this.constructor = constructor;
+        
+        List<EntityField> fields = new ArrayList<>(); // The resolved fields
+        Map<String, EntityField> fieldsByKey = new HashMap<>(); // The resolved fields, keyed by their key
+        EntityField idField = null; // The resolved id field
+        for (java.lang.reflect.Field field : entityClass.getDeclaredFields()) {
+            // Field is missing the @Field annotation, skip it
+            if (!field.isAnnotationPresent(Field.class)) {
+                continue;
+            }
+            field.setAccessible(true); // Make our field accessible
+            EntityField entityField = new EntityField(field, fields.size());
+            if (entityField.isId()) { // The field is annotated with @Id, save it for later
+                idField = entityField;
+            }
+            fields.add(entityField);
+            fieldsByKey.put(entityField.getKey(), entityField);
+        }
+        this.fields = Collections.unmodifiableList(fields);
+        this.fieldsByKey = fieldsByKey;
+        this.idField = idField;
+    }
+    
+    /**
+     * Get the metadata for the given entity class.
+     *
+     * @param entityClass the entity class
+     * @param <E> the entity type
+     * @return the metadata
+     */
+    @NonNull @SuppressWarnings("unchecked")
+    public static <E> EntityMetadata<E> of(@NonNull Class<E> entityClass) {
+        return (EntityMetadata<E>) CACHE.computeIfAbsent(entityClass, EntityMetadata::new);
+    }
+    
+    /**
+     * Get the field with the given key.
+     *
+     * @param key the key of the field
+     * @return the field, null if none
+     */
+    public EntityField getField(@NonNull String key) {
+        return fieldsByKey.get(key);
+    }
+    
+    /**
+     * Construct a new, empty instance of the entity.
+     *
+     * @return the created entity
+     * @throws IllegalStateException if the entity is missing a no args constructor
+     */
+    @NonNull
+    public E newInstance() throws IllegalStateException {
+        if (constructor == null) { // We need our no args constructor
+            throw new IllegalStateException("Entity " + entityClass.getName() + " is missing no args constructor");
+        }
+        try {
+            return constructor.newInstance();
+        } catch (InvocationTargetException | InstantiationException | IllegalAccessException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+    
+    /**
+     * A {@link Field} within an entity, along
+     * with everything needed to read and write it.
+     */
+    @Getter @ToString
+    public static final class EntityField {
+        /**
+         * The Java field.
+         */
+        @NonNull @ToString.Exclude private final java.lang.reflect.Field field;
+        
+        /**
+         * The index of this field within the entity.
+         */
+        private final int index;
+        
+        /**
+         * The key of the database field.
+         */
+        @NonNull private final String key;
+        
+        /**
+         * The type of the field.
+         */
+        @NonNull private final Class<?> type;
+        
+        /**
+         * The generic type of the field, used when deserializing.
+         */
+        @NonNull @ToString.Exclude private final Type genericType;
+        
+        /**
+         * Whether this field is annotated with {@link Id}.
+         */
+        private final boolean id;
+        
+        /**
+         * Whether this field is annotated with {@link Serializable}.
+         */
+        private final boolean serializable;
+        
+        private EntityField(@NonNull java.lang.reflect.Field field, int index) {
+            this.field = field;
+            this.index = index;
+            key = FieldUtils.extractKey(field);
+            type = field.getType();
+            genericType = field.getGenericType();
+            id = field.isAnnotationPresent(Id.class);
+            serializable = field.isAnnotationPresent(Serializable.class);
+        }
+        
+        /**
+         * Read the value of this field from the given
+         * entity, converting it to its stored form.
+         *
+         * @param entity the entity to read from
+         * @return the stored value
+         */
+        public Object read(@NonNull Object entity) {
+            return toStored(get(entity));
+        }
+        
+        /**
+         * Write the given stored value to this
+         * field, converting it to the field type.
+         *
+         * @param entity the entity to write to
+         * @param value the stored value
+         */
+        public void write(@NonNull Object entity, Object value) {
+            value = fromStored(value);
+            if (value == null && type.isPrimitive()) { // Primitives can't be null, leave the default value
+                return;
+            }
+            set(entity, value); // Set the value of the field
+        }
+        
+        /**
+         * Get the raw value of this field from the given entity.
+         *
+         * @param entity the entity to get the value from
+         * @return the value of the field
+         */
+        public Object get(@NonNull Object entity) {
+            try {
+                return field.get(entity);
+            } catch (IllegalAccessException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+        
+        /**
+         * Set the raw value of this field on the given entity.
+         *
+         * @param entity the entity to set the value on
+         * @param value the value to set
+         */
+        public void set(@NonNull Object entity, Object value) {
+            try {
+                field.set(entity, value);
+            } catch (IllegalAccessException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+        
+        /**
+         * Convert the given value of this field to its stored form.
+         *
+         * @param value the value to convert
+         * @return the stored value
+         */
+        public Object toStored(Object value) {
+            if (serializable) { // Serialize the field if @Serializable is present
+                value = FeatherSettings.getSerializer().serialize(value);
+            } else if (type == UUID.class && value != null) { // Convert UUIDs into strings
+                value = value.toString();
+            } else if (value instanceof Enum) { // Store enums by their name
+                value = ((Enum<?>) value).name();
+            }
+            return value;
+        }
+        
+        /**
+         * Convert the given stored value to the type of this field.
+         *
+         * @param value the stored value
+         * @return the converted value
+         */
+        public Object fromStored(Object value) {
+            // Field is serializable and is a string, deserialize it
+            if (serializable && value instanceof String) {
+                value = FeatherSettings.getSerializer().deserialize((String) value, genericType);
+            } else if (type == UUID.class && value != null) { // Type is a UUID, convert it
+                value = UUID.fromString((String) value);
+            } else if (value instanceof String && type != String.class) { // Stored as a string, such as within a Redis hash
+                value = parse((String) value);
+            }
+            return value;
+        }
+        
+        /**
+         * Check if this field holds a whole number,
+         * meaning it can be incremented.
+         *
+         * @return whether the field is a whole number
+         */
+        public boolean isWholeNumber() {
+            Class<?> type = Primitives.wrap(this.type);
+            return type == Integer.class || type == Long.class || type == Short.class || type == Byte.class;
+        }
+        
+        /**
+         * Check if the given increment fits within
+         * the range of this whole number field.
+         *
+         * @param delta the amount to increment by
+         * @return whether the increment fits
+         */
+        public boolean fitsIncrement(long delta) {
+            return isWholeNumber() && delta >= getMinValue() && delta <= getMaxValue();
+        }
+        
+        /**
+         * Get the smallest value this whole number field can hold.
+         *
+         * @return the smallest value
+         */
+        public long getMinValue() {
+            Class<?> type = Primitives.wrap(this.type);
+            if (type == Integer.class) {
+                return Integer.MIN_VALUE;
+            } else if (type == Short.class) {
+                return Short.MIN_VALUE;
+            } else if (type == Byte.class) {
+                return Byte.MIN_VALUE;
+            }
+            return Long.MIN_VALUE;
+        }
+        
+        /**
+         * Get the largest value this whole number field can hold.
+         *
+         * @return the largest value
+         */
+        public long getMaxValue() {
+            Class<?> type = Primitives.wrap(this.type);
+            if (type == Integer.class) {
+                return Integer.MAX_VALUE;
+            } else if (type == Short.class) {
+                return Short.MAX_VALUE;
+            } else if (type == Byte.class) {
+                return Byte.MAX_VALUE;
+            }
+            return Long.MAX_VALUE;
+        }
+        
+        /**
+         * Parse the given string into the type of this field.
+         * <p>
+         * Numbers, booleans, characters and enums are
+         * parsed, any other type is left as a string.
+         * </p>
+         *
+         * @param value the string to parse
+         * @return the parsed value
+         * @throws IllegalArgumentException if the string isn't valid for the type
+         */
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private Object parse(@NonNull String value) throws IllegalArgumentException {
+            Class<?> type = Primitives.wrap(this.type);
+            if (type == Integer.class) {
+                return Integer.valueOf(value);
+            } else if (type == Long.class) {
+                return Long.valueOf(value);
+            } else if (type == Double.class) {
+                return Double.valueOf(value);
+            } else if (type == Float.class) {
+                return Float.valueOf(value);
+            } else if (type == Short.class) {
+                return Short.valueOf(value);
+            } else if (type == Byte.class) {
+                return Byte.valueOf(value);
+            } else if (type == Boolean.class) {
+                return Boolean.valueOf(value);
+            } else if (type == Character.class && value.length() == 1) {
+                return value.charAt(0);
+            } else if (type.isEnum()) {
+                return Enum.valueOf((Class<? extends Enum>) type, value);
+            }
+            return value;
+        }
+    }
+}
\ No newline at end of file
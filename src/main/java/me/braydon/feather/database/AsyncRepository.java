@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database;
+
+import lombok.NonNull;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The non-blocking counterpart of a {@link Repository}.
+ * <p>
+ * Every operation returns immediately with a
+ * {@link CompletableFuture} that is completed
+ * once the database has replied.
+ * </p>
+ *
+ * @author Braydon
+ * @param <ID> the identifier for type for entities
+ * @param <E> the entity type this repository stores
+ */
+public interface AsyncRepository<ID, E> {
+    /**
+     * Get the entity with the given id.
+     *
+     * @param id the entity id
+     * @return the future entity with the id, completed with null if none
+     * @see ID for id
+     * @see E for entity
+     */
+    @NonNull CompletableFuture<E> find(@NonNull ID id);
+    
+    /**
+     * Get all entities within this repository.
+     *
+     * @return the future entities
+     * @see E for entity
+     */
+    @NonNull CompletableFuture<List<E>> findAll();
+    
+    /**
+     * Save the given entity to the database.
+     *
+     * @param entity the entity to save
+     * @return the future completed once saved
+     * @see E for entity
+     */
+    @NonNull @SuppressWarnings("unchecked")
+    default CompletableFuture<Void> save(@NonNull E entity) {
+        return saveAll(entity);
+    }
+    
+    /**
+     * Save the given entities.
+     *
+     * @param entities the entities to save
+     * @return the future completed once saved
+     * @see E for entity
+     */
+    @NonNull CompletableFuture<Void> saveAll(@NonNull E... entities);
+    
+    /**
+     * Get the amount of stored entities.
+     *
+     * @return the future amount of stored entities
+     * @see E for entity
+     */
+    @NonNull CompletableFuture<Long> count();
+    
+    /**
+     * Drop the entity with the given id.
+     *
+     * @param id the entity id to drop
+     * @return the future completed once dropped
+     * @see ID for id
+     * @see E for entity
+     */
+    @NonNull CompletableFuture<Void> dropById(@NonNull ID id);
+    
+    /**
+     * Drop the given entity.
+     *
+     * @param entity the entity to drop
+     * @return the future completed once dropped
+     * @see E for entity
+     */
+    @NonNull CompletableFuture<Void> drop(@NonNull E entity);
+}
\ No newline at end of file
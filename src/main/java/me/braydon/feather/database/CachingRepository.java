@@ -0,0 +1,538 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import lombok.NonNull;
+import me.braydon.feather.data.EntityMetadata;
+import me.braydon.feather.database.query.Query;
+import me.braydon.feather.database.resilience.RetryPolicy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * A {@link Repository} that keeps a bounded, in-process
+ * read-through cache of entities in front of another
+ * repository.
+ * <p>
+ * Lookups by id are served from the cache when possible,
+ * saves and drops are written to the wrapped repository
+ * and invalidate the affected entries. Cached entities
+ * are shared instances, they should be treated as
+ * read-only unless saved afterwards.
+ * </p>
+ *
+ * @author Braydon
+ * @param <D> the database the wrapped repository uses
+ * @param <ID> the identifier for type for entities
+ * @param <E> the entity type this repository stores
+ */
+public class CachingRepository<D extends IDatabase<?, ?>, ID, E> extends Repository<D, ID, E> {
+    /**
+     * The repository to cache entities from.
+     */
+    @NonNull private final Repository<D, ID, E> delegate;
+    
+    /**
+     * The cached entities, keyed by the stored form of their id.
+     */
+    @NonNull private final Cache<String, E> cache;
+    
+    /**
+     * The amount of invalidations so far.
+     * <p>
+     * A load that raced with an invalidation may have
+     * read the entity before it changed, so entries
+     * loaded while this moved are discarded again.
+     * </p>
+     */
+    @NonNull private final AtomicLong invalidations = new AtomicLong();
+    
+    /**
+     * The bus to publish changes on, null if none.
+     */
+    private volatile ChangeBus changeBus;
+    
+    /**
+     * The channel to publish changes on, null if none.
+     */
+    private volatile String changeChannel;
+    
+    /**
+     * The subscription to changes from other nodes, null if none.
+     */
+    private ChangeBus.Subscription changeSubscription;
+    
+    /**
+     * Create a new caching repository.
+     *
+     * @param delegate the repository to cache entities from
+     * @param maximumSize the maximum amount of entities to cache
+     * @param expireAfterWrite the time after which a cached entity expires, 0 or less to never expire
+     * @param unit the unit of the expiry time
+     */
+    public CachingRepository(@NonNull Repository<D, ID, E> delegate, long maximumSize, long expireAfterWrite, @NonNull TimeUnit unit) {
+        super(delegate.getDatabase(), delegate.getEntityClass());
+        this.delegate = delegate;
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats();
+        if (expireAfterWrite > 0L) {
+            builder.expireAfterWrite(expireAfterWrite, unit);
+        }
+        cache = builder.build();
+    }
+    
+    /**
+     * Keep this cache in sync with the caches of other nodes.
+     * <p>
+     * Saves and drops made through this repository are
+     * published on the given channel, and changes published
+     * by other nodes invalidate only the affected entries.
+     * If changes may have been missed, such as while the
+     * bus was reconnecting, the whole cache is invalidated.
+     * </p>
+     *
+     * @param changeBus the bus to publish and listen on
+     * @param channel the channel for this repository, shared between nodes
+     * @return this repository
+     * @see #detach() for detaching again
+     */
+    @NonNull
+    public synchronized CachingRepository<D, ID, E> attach(@NonNull ChangeBus changeBus, @NonNull String channel) {
+        detach(); // Only keep in sync over a single bus
+        changeSubscription = changeBus.subscribe(channel, keys -> {
+            invalidations.incrementAndGet();
+            cache.invalidateAll(keys);
+        }, this::invalidateAll);
+        this.changeBus = changeBus;
+        changeChannel = channel;
+        return this;
+    }
+    
+    /**
+     * Stop keeping this cache in sync with the caches of other nodes.
+     * <p>
+     * If not attached to a bus, this has no effect.
+     * </p>
+     */
+    public synchronized void detach() {
+        if (changeSubscription != null) {
+            changeSubscription.close();
+        }
+        changeSubscription = null;
+        changeBus = null;
+        changeChannel = null;
+    }
+    
+    /**
+     * Get the entity with the given id, from the cache if present.
+     *
+     * @param id the entity id
+     * @return the entity with the id, null if none
+     * @see ID for id
+     * @see E for entity
+     */
+    @Override
+    public E find(@NonNull ID id) {
+        String key = cacheKey(id);
+        long invalidations = this.invalidations.get();
+        boolean[] loaded = new boolean[1]; // Whether we loaded the entity, rather than hit the cache
+        E entity;
+        try {
+            entity = cache.get(key, () -> { // Concurrent lookups of the same id share a single load
+                loaded[0] = true;
+                return delegate.find(id);
+            });
+        } catch (CacheLoader.InvalidCacheLoadException ignored) { // No entity with the id, nothing to cache
+            return null;
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+        if (loaded[0] && this.invalidations.get() != invalidations) { // Invalidated while loading, the entity may be stale
+            cache.invalidate(key);
+        }
+        return entity;
+    }
+    
+    /**
+     * Get the entities with the given ids, only
+     * loading the ones that are not cached.
+     *
+     * @param ids the entity ids
+     * @return the found entities keyed by their id, ids with no entity are absent
+     * @see ID for id
+     * @see E for entity
+     */
+    @Override @NonNull
+    public Map<ID, E> findAllById(@NonNull Collection<ID> ids) {
+        Map<ID, E> entities = new HashMap<>(); // The entities to return
+        List<ID> missing = new ArrayList<>(); // The ids that are not cached
+        for (ID id : ids) {
+            E entity = cache.getIfPresent(cacheKey(id));
+            if (entity == null) {
+                missing.add(id);
+            } else {
+                entities.put(id, entity);
+            }
+        }
+        if (!missing.isEmpty()) { // Load the missing entities
+            long invalidations = this.invalidations.get();
+            List<String> keys = new ArrayList<>(missing.size()); // The cache keys of the loaded entities
+            for (Map.Entry<ID, E> entry : delegate.findAllById(missing).entrySet()) {
+                String key = cacheKey(entry.getKey());
+                cache.put(key, entry.getValue());
+                keys.add(key);
+                entities.put(entry.getKey(), entry.getValue());
+            }
+            if (this.invalidations.get() != invalidations) { // Invalidated while loading, the entities may be stale
+                cache.invalidateAll(keys);
+            }
+        }
+        return Collections.unmodifiableMap(entities);
+    }
+    
+    /**
+     * Get all entities within the wrapped repository.
+     *
+     * @return the entities
+     * @see E for entity
+     */
+    @Override
+    public List<E> findAll() {
+        return delegate.findAll();
+    }
+    
+    /**
+     * Get the entities matching the given
+     * query from the wrapped repository.
+     *
+     * @param query the query to run
+     * @return the matching entities
+     * @see Query for query
+     * @see E for entity
+     */
+    @Override @NonNull
+    public List<E> findWhere(@NonNull Query query) {
+        return delegate.findWhere(query);
+    }
+    
+    /**
+     * Stream all entities within the wrapped repository.
+     *
+     * @return the entity stream
+     * @see E for entity
+     */
+    @Override @NonNull
+    public Stream<E> stream() {
+        return delegate.stream();
+    }
+    
+    /**
+     * Save the given entities to the wrapped
+     * repository and invalidate their entries.
+     *
+     * @param entities the entities to save
+     * @see E for entity
+     */
+    @Override
+    public void saveAll(@NonNull E... entities) {
+        try {
+            delegate.saveAll(entities);
+        } finally {
+            invalidateEntities(entities);
+        }
+    }
+    
+    /**
+     * Atomically increment a field in the wrapped
+     * repository and invalidate the entity's entry.
+     *
+     * @param id the entity id
+     * @param field the name or key of the field to increment
+     * @param delta the amount to increment by, negative to decrement
+     * @return the value of the field after the increment
+     * @throws IllegalArgumentException if the field doesn't exist, isn't a whole number, or the delta doesn't fit its type
+     * @see ID for id
+     */
+    @Override
+    public long increment(@NonNull ID id, @NonNull String field, long delta) throws IllegalArgumentException {
+        try {
+            return delegate.increment(id, field, delta);
+        } finally {
+            invalidateKeys(Collections.singletonList(cacheKey(id)));
+        }
+    }
+    
+    /**
+     * Atomically append to a field in the wrapped
+     * repository and invalidate the entity's entry.
+     *
+     * @param id the entity id
+     * @param field the name or key of the collection field to append to
+     * @param value the value to append
+     * @throws IllegalArgumentException if the field doesn't exist or isn't a collection
+     * @throws ConcurrentModificationException if other writers kept changing the field
+     * @see ID for id
+     */
+    @Override
+    public void push(@NonNull ID id, @NonNull String field, Object value) throws IllegalArgumentException, ConcurrentModificationException {
+        try {
+            delegate.push(id, field, value);
+        } finally {
+            invalidateKeys(Collections.singletonList(cacheKey(id)));
+        }
+    }
+    
+    /**
+     * Atomically set a field in the wrapped repository if
+     * it has no value yet, invalidating the entity's entry.
+     *
+     * @param id the entity id
+     * @param field the name or key of the field to set
+     * @param value the value to set
+     * @return whether the value was set
+     * @throws IllegalArgumentException if the field doesn't exist
+     * @see ID for id
+     */
+    @Override
+    public boolean setIfAbsent(@NonNull ID id, @NonNull String field, @NonNull Object value) throws IllegalArgumentException {
+        try {
+            return delegate.setIfAbsent(id, field, value);
+        } finally {
+            invalidateKeys(Collections.singletonList(cacheKey(id)));
+        }
+    }
+    
+    /**
+     * Get the amount of stored entities.
+     *
+     * @return the amount of stored entities
+     * @see E for entity
+     */
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+    
+    /**
+     * Drop the entity with the given id
+     * and invalidate its entry.
+     *
+     * @param id the entity id to drop
+     * @see ID for id
+     * @see E for entity
+     */
+    @Override
+    public void dropById(@NonNull ID id) {
+        try {
+            delegate.dropById(id);
+        } finally {
+            invalidateKeys(Collections.singletonList(cacheKey(id)));
+        }
+    }
+    
+    /**
+     * Drop the given entity and invalidate its entry.
+     *
+     * @param entity the entity to drop
+     * @see E for entity
+     */
+    @Override
+    public void drop(@NonNull E entity) {
+        try {
+            delegate.drop(entity);
+        } finally {
+            invalidateEntities(entity);
+        }
+    }
+    
+    /**
+     * Drop the entities with the given ids
+     * and invalidate their entries.
+     *
+     * @param ids the entity ids to drop
+     * @see ID for id
+     * @see E for entity
+     */
+    @Override
+    public void dropAllById(@NonNull Collection<ID> ids) {
+        try {
+            delegate.dropAllById(ids);
+        } finally {
+            List<String> keys = new ArrayList<>(ids.size()); // The cache keys of the entities
+            for (ID id : ids) {
+                keys.add(cacheKey(id));
+            }
+            invalidateKeys(keys);
+        }
+    }
+    
+    /**
+     * Drop the given entities and invalidate their entries.
+     *
+     * @param entities the entities to drop
+     * @see E for entity
+     */
+    @Override
+    public void dropAll(@NonNull E... entities) {
+        try {
+            delegate.dropAll(entities);
+        } finally {
+            invalidateEntities(entities);
+        }
+    }
+    
+    /**
+     * Set the batch size of this
+     * and the wrapped repository.
+     *
+     * @param batchSize the batch size
+     */
+    @Override
+    public void setBatchSize(int batchSize) {
+        super.setBatchSize(batchSize);
+        delegate.setBatchSize(batchSize);
+    }
+    
+    /**
+     * Set whether this and the wrapped
+     * repository track loaded entities.
+     *
+     * @param changeTracking whether to track changes
+     */
+    @Override
+    public void setChangeTracking(boolean changeTracking) {
+        super.setChangeTracking(changeTracking);
+        delegate.setChangeTracking(changeTracking);
+    }
+    
+    /**
+     * Set how failed operations of this
+     * and the wrapped repository are retried.
+     *
+     * @param retryPolicy the retry policy
+     */
+    @Override
+    public void setRetryPolicy(@NonNull RetryPolicy retryPolicy) {
+        super.setRetryPolicy(retryPolicy);
+        delegate.setRetryPolicy(retryPolicy);
+    }
+    
+    /**
+     * Set how entities loaded by this and
+     * the wrapped repository are mapped.
+     *
+     * @param parallelMapping the parallel mapping, null to map on the calling thread
+     */
+    @Override
+    public void setParallelMapping(ParallelMapping parallelMapping) {
+        super.setParallelMapping(parallelMapping);
+        delegate.setParallelMapping(parallelMapping);
+    }
+    
+    /**
+     * Invalidate the cached entity with the given id.
+     *
+     * @param id the entity id
+     * @see ID for id
+     */
+    public void invalidate(@NonNull Object id) {
+        invalidations.incrementAndGet();
+        cache.invalidate(cacheKey(id));
+    }
+    
+    /**
+     * Invalidate all cached entities.
+     */
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+    
+    /**
+     * Get the amount of cached entities.
+     *
+     * @return the amount of cached entities
+     */
+    public long getCacheSize() {
+        return cache.size();
+    }
+    
+    /**
+     * Get the hit, miss, load and eviction statistics of the cache.
+     *
+     * @return the cache statistics
+     */
+    @NonNull
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+    
+    /**
+     * Get the cache key for the given id, the
+     * string form of the id as it is stored.
+     *
+     * @param id the entity id
+     * @return the cache key
+     */
+    @NonNull
+    private String cacheKey(@NonNull Object id) {
+        return String.valueOf(getIdField().toStored(id));
+    }
+    
+    /**
+     * Invalidate the cached entries of the given entities
+     * and notify other nodes of the change.
+     *
+     * @param entities the entities to invalidate
+     * @see E for entity
+     */
+    private void invalidateEntities(@NonNull E... entities) {
+        EntityMetadata.EntityField idField = getIdField(); // The field annotated with @Id
+        List<String> keys = new ArrayList<>(entities.length); // The cache keys of the entities
+        for (E entity : entities) {
+            keys.add(String.valueOf(idField.read(entity)));
+        }
+        invalidateKeys(keys);
+    }
+    
+    /**
+     * Invalidate the entries with the given cache keys
+     * and notify other nodes of the change.
+     *
+     * @param keys the cache keys to invalidate
+     */
+    private void invalidateKeys(@NonNull List<String> keys) {
+        invalidations.incrementAndGet();
+        cache.invalidateAll(keys);
+        ChangeBus changeBus = this.changeBus;
+        String changeChannel = this.changeChannel;
+        if (changeBus != null && changeChannel != null) { // Let the other nodes know
+            changeBus.publish(changeChannel, keys);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database;
+
+import lombok.NonNull;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * A bus that notifies other nodes
+ * of changes made to entities.
+ * <p>
+ * Changes are identified by the stored form of
+ * the ids of the changed entities. A node does
+ * not receive the changes it publishes itself.
+ * </p>
+ *
+ * @author Braydon
+ * @see CachingRepository#attach(ChangeBus, String) for keeping caches in sync
+ */
+public interface ChangeBus {
+    /**
+     * Notify other nodes that the entities
+     * with the given ids have changed.
+     *
+     * @param channel the channel to publish on
+     * @param ids the ids of the changed entities
+     */
+    void publish(@NonNull String channel, @NonNull Collection<String> ids);
+    
+    /**
+     * Listen for changes published by other nodes.
+     * <p>
+     * Changes published while the bus is disconnected
+     * are lost, once it's listening again the missed
+     * callback is run so the caller can catch up.
+     * </p>
+     *
+     * @param channel the channel to listen on
+     * @param listener the listener to call with the ids of the changed entities
+     * @param missed the callback to run when changes may have been missed
+     * @return the subscription, close it to stop listening
+     */
+    @NonNull Subscription subscribe(@NonNull String channel, @NonNull Consumer<Collection<String>> listener, @NonNull Runnable missed);
+    
+    /**
+     * A listener registered with {@link #subscribe(String, Consumer, Runnable)}.
+     */
+    interface Subscription extends Closeable {
+        /**
+         * Stop listening for changes.
+         * <p>
+         * If the subscription is already
+         * closed, this has no effect.
+         * </p>
+         */
+        @Override
+        void close();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically probes a {@link IDatabase} in the background,
+ * keeping a rolling window of the observed latencies.
+ * <p>
+ * Probes run on a single daemon thread, so reading the
+ * health or latency of a database never blocks on, or
+ * adds load to, the database itself. A database is
+ * considered down once {@link #getFailureThreshold()}
+ * probes in a row have failed, or when a probe has
+ * been in flight for longer than the probe timeout.
+ * </p>
+ *
+ * @author Braydon
+ * @see IDatabase#getHealthMonitor() for a database's monitor
+ */
+@ThreadSafe
+public final class HealthMonitor {
+    /**
+     * The database this monitor probes.
+     */
+    @NonNull private final IDatabase<?, ?> database;
+    
+    /**
+     * The probe to run, a round-trip to the database.
+     */
+    @NonNull private final Callable<?> probe;
+    
+    /**
+     * The time between probes, in milliseconds.
+     */
+    @Getter private volatile long interval = TimeUnit.SECONDS.toMillis(5L);
+    
+    /**
+     * The time after which an in flight
+     * probe counts as failed, in milliseconds.
+     */
+    @Getter private volatile long timeout = TimeUnit.SECONDS.toMillis(2L);
+    
+    /**
+     * The amount of failed probes in a row
+     * after which the database is considered down.
+     */
+    @Getter private volatile int failureThreshold = 3;
+    
+    /**
+     * The amount of latencies kept in the rolling window.
+     */
+    @Getter private volatile int windowSize = 64;
+    
+    /**
+     * The latencies of the most recent successful
+     * probes, in nanoseconds, used as a ring buffer.
+     */
+    private long[] window = new long[windowSize];
+    
+    /**
+     * The amount of latencies recorded into the window.
+     */
+    private long samples;
+    
+    /**
+     * The amount of failed probes in a row.
+     */
+    private volatile int failures;
+    
+    /**
+     * The time the running probe started at, from
+     * {@link System#nanoTime()}, 0 if none is running.
+     */
+    private volatile long probeStart;
+    
+    /**
+     * The error thrown by the last failed probe, null if none.
+     */
+    @Getter private volatile Throwable lastError;
+    
+    /**
+     * The latency statistics of the rolling window.
+     */
+    @Getter @NonNull private volatile LatencyStats stats = LatencyStats.EMPTY;
+    
+    /**
+     * The scheduler running the probes, null if stopped.
+     */
+    private ScheduledExecutorService scheduler;
+    
+    public HealthMonitor(@NonNull IDatabase<?, ?> database, @NonNull Callable<?> probe) {
+        this.database = database;
+        this.probe = probe;
+    }
+    
+    /**
+     * Set the time between probes, applied when the monitor is next started.
+     *
+     * @param interval the time between probes
+     * @param unit the unit of the time
+     * @throws IllegalArgumentException if the interval isn't positive
+     */
+    public void setInterval(long interval, @NonNull TimeUnit unit) throws IllegalArgumentException {
+        if (interval <= 0L) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        this.interval = unit.toMillis(interval);
+    }
+    
+    /**
+     * Set the time after which an in flight probe counts as failed.
+     *
+     * @param timeout the probe timeout
+     * @param unit the unit of the timeout
+     * @throws IllegalArgumentException if the timeout isn't positive
+     */
+    public void setTimeout(long timeout, @NonNull TimeUnit unit) throws IllegalArgumentException {
+        if (timeout <= 0L) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+        this.timeout = unit.toMillis(timeout);
+    }
+    
+    /**
+     * Set the amount of failed probes in a row
+     * after which the database is considered down.
+     *
+     * @param failureThreshold the failure threshold
+     * @throws IllegalArgumentException if the threshold isn't positive
+     */
+    public void setFailureThreshold(int failureThreshold) throws IllegalArgumentException {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("Failure threshold must be positive");
+        }
+        this.failureThreshold = failureThreshold;
+    }
+    
+    /**
+     * Set the amount of latencies kept in the rolling
+     * window, applied when the monitor is next started.
+     *
+     * @param windowSize the window size
+     * @throws IllegalArgumentException if the size isn't positive
+     */
+    public void setWindowSize(int windowSize) throws IllegalArgumentException {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive");
+        }
+        this.windowSize = windowSize;
+    }
+    
+    /**
+     * Start probing the database, clearing
+     * the state of any previous run.
+     */
+    public synchronized void start() {
+        stop();
+        window = new long[windowSize];
+        samples = 0L;
+        failures = 0;
+        lastError = null;
+        stats = LatencyStats.EMPTY;
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                                                                   .setNameFormat("Feather " + database.getName() + " Health Monitor")
+                                                                   .setDaemon(true)
+                                                                   .build());
+        scheduler.scheduleWithFixedDelay(this::probe, 0L, interval, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Stop probing the database.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        probeStart = 0L;
+    }
+    
+    /**
+     * Check if the database is healthy.
+     * <p>
+     * This never blocks, it only looks at the
+     * outcome of the probes run so far. Until the
+     * first probe completes, the database is
+     * assumed to be healthy.
+     * </p>
+     *
+     * @return whether the database is healthy
+     */
+    public boolean isHealthy() {
+        long probeStart = this.probeStart;
+        if (probeStart != 0L && System.nanoTime() - probeStart > TimeUnit.MILLISECONDS.toNanos(timeout)) { // The running probe is stuck
+            return false;
+        }
+        return failures < failureThreshold;
+    }
+    
+    /**
+     * Run a single probe, recording its latency or failure.
+     */
+    private void probe() {
+        long start = System.nanoTime();
+        probeStart = start;
+        try {
+            probe.call();
+            long latency = System.nanoTime() - start;
+            if (latency > TimeUnit.MILLISECONDS.toNanos(timeout)) { // Answered, but too late
+                fail(null);
+                return;
+            }
+            failures = 0;
+            lastError = null;
+            addSample(latency);
+            database.getMetrics().recordLatency(database.getName(), latency);
+        } catch (Throwable ex) {
+            fail(ex);
+        } finally {
+            probeStart = 0L;
+        }
+    }
+    
+    /**
+     * Record a failed probe.
+     *
+     * @param error the error thrown by the probe, null if it timed out
+     */
+    private void fail(Throwable error) {
+        lastError = error;
+        failures++; // Only the probe thread writes this
+    }
+    
+    /**
+     * Add the given latency to the rolling
+     * window and recompute its statistics.
+     *
+     * @param latency the latency, in nanoseconds
+     */
+    private synchronized void addSample(long latency) {
+        window[(int) (samples++ % window.length)] = latency;
+        int count = (int) Math.min(samples, window.length);
+        long[] sorted = Arrays.copyOf(window, count);
+        Arrays.sort(sorted);
+        long sum = 0L;
+        for (long value : sorted) {
+            sum += value;
+        }
+        int p99 = (int) Math.ceil(count * 0.99D) - 1; // The nearest rank of the 99th percentile
+        stats = new LatencyStats(count, latency, sorted[0], sum / count, sorted[Math.max(0, p99)], sorted[count - 1]);
+    }
+    
+    /**
+     * An immutable summary of the rolling latency window.
+     * <p>
+     * All latencies are in nanoseconds, and
+     * are 0 when no probe has succeeded yet.
+     * </p>
+     */
+    @AllArgsConstructor(access = AccessLevel.PRIVATE) @Getter @ToString
+    public static final class LatencyStats {
+        /**
+         * The statistics of an empty window.
+         */
+        private static final LatencyStats EMPTY = new LatencyStats(0, 0L, 0L, 0L, 0L, 0L);
+        
+        /**
+         * The amount of latencies within the window.
+         */
+        private final int samples;
+        
+        /**
+         * The latency of the most recent successful probe.
+         */
+        private final long last;
+        
+        /**
+         * The lowest latency within the window.
+         */
+        private final long min;
+        
+        /**
+         * The mean latency within the window.
+         */
+        private final long average;
+        
+        /**
+         * The 99th percentile latency within the window.
+         */
+        private final long p99;
+        
+        /**
+         * The highest latency within the window.
+         */
+        private final long max;
+    }
+}
\ No newline at end of file
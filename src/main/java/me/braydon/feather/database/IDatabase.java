@@ -6,6 +6,8 @@
 package me.braydon.feather.database;
 
 import lombok.NonNull;
+import me.braydon.feather.database.resilience.CircuitBreaker;
+import me.braydon.feather.metrics.MetricsRecorder;
 
 import java.io.Closeable;
 
@@ -34,15 +36,23 @@ public interface IDatabase<B, C> extends Closeable {
     
     /**
      * Check if this database is connected.
+     * <p>
+     * This only reflects whether {@link #connect(Object)}
+     * has been called and the database not yet closed, a
+     * connected database may still be failing to respond.
+     * Use {@link #getHealthMonitor()}, if any, to check its health.
+     * </p>
      *
      * @return the database connection state
      */
     boolean isConnected();
     
     /**
-     * Get the latency to this database.
+     * Get the latency to this database, as
+     * measured by the last health probe.
      *
-     * @return the latency, -1 if not connected
+     * @return the latency in milliseconds, -1 if not connected or not probed yet
+     * @see HealthMonitor#getStats() for the rolling latency window
      */
     long getLatency();
     
@@ -54,4 +64,51 @@ public interface IDatabase<B, C> extends Closeable {
      * @see B for bootstrap class
      */
     B getBootstrap();
+    
+    /**
+     * Get the monitor probing the health of
+     * this database in the background.
+     * <p>
+     * The monitor is started when connecting, configure
+     * it beforehand to change how often it probes.
+     * </p>
+     *
+     * @return the health monitor, null if this database isn't monitored
+     */
+    default HealthMonitor getHealthMonitor() {
+        return null;
+    }
+    
+    /**
+     * Get the circuit breaker guarding
+     * the repositories of this database.
+     *
+     * @return the circuit breaker, null if operations aren't guarded
+     */
+    default CircuitBreaker getCircuitBreaker() {
+        return null;
+    }
+    
+    /**
+     * Get the recorder for the metrics of this database,
+     * also used by its repositories unless overridden.
+     *
+     * @return the metrics recorder
+     * @see MetricsRecorder#NOOP for the default
+     */
+    @NonNull
+    default MetricsRecorder getMetrics() {
+        return MetricsRecorder.NOOP;
+    }
+    
+    /**
+     * Set the recorder for the metrics of this database.
+     * <p>
+     * By default this does nothing, as a database
+     * that doesn't record metrics has none to set.
+     * </p>
+     *
+     * @param metrics the metrics recorder
+     */
+    default void setMetrics(@NonNull MetricsRecorder metrics) { }
 }
\ No newline at end of file
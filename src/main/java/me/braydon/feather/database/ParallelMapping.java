@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+
+/**
+ * Maps raw database rows into entities on a pool of
+ * workers, while the caller keeps fetching rows.
+ * <p>
+ * At most {@link #getMaxInFlight()} rows are handed to the
+ * workers at once, once the limit is reached the caller
+ * waits for a mapping to complete before fetching more,
+ * keeping memory bounded however large the result is.
+ * </p>
+ *
+ * @author Braydon
+ * @see Repository#setParallelMapping(ParallelMapping) for enabling parallel mapping
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE) @Getter @ToString
+public final class ParallelMapping {
+    /**
+     * The executor to map rows on.
+     */
+    @NonNull private final Executor executor;
+    
+    /**
+     * The maximum amount of rows being mapped at once.
+     */
+    private final int maxInFlight;
+    
+    /**
+     * Whether entities are returned in the order their rows
+     * were fetched, rather than the order they were mapped in.
+     */
+    private final boolean ordered;
+    
+    /**
+     * Map rows on the common {@link ForkJoinPool}, in order.
+     *
+     * @return the parallel mapping
+     */
+    @NonNull
+    public static ParallelMapping commonPool() {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        return new ParallelMapping(pool, pool.getParallelism() * 4, true);
+    }
+    
+    /**
+     * Map rows on the given executor.
+     *
+     * @param executor the executor to map rows on
+     * @param maxInFlight the maximum amount of rows being mapped at once
+     * @param ordered whether to preserve the order rows were fetched in
+     * @return the parallel mapping
+     * @throws IllegalArgumentException if the max in flight isn't positive
+     */
+    @NonNull
+    public static ParallelMapping of(@NonNull Executor executor, int maxInFlight, boolean ordered) throws IllegalArgumentException {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Max in flight must be positive");
+        }
+        return new ParallelMapping(executor, maxInFlight, ordered);
+    }
+    
+    /**
+     * Map the given rows, skipping rows mapped to null.
+     *
+     * @param rows the rows to map, fetched lazily on the calling thread
+     * @param mapper the function mapping a row into an entity
+     * @param <R> the type of row
+     * @param <E> the entity type
+     * @return the mapped entities
+     */
+    @NonNull
+    public <R, E> List<E> map(@NonNull Iterator<R> rows, @NonNull Function<R, E> mapper) {
+        CompletionService<E> completionService = ordered ? null : new ExecutorCompletionService<>(executor);
+        Deque<Future<E>> pending = new ArrayDeque<>(maxInFlight); // The mappings in flight, in fetch order
+        List<E> entities = new ArrayList<>();
+        try {
+            while (rows.hasNext()) {
+                R row = rows.next();
+                if (pending.size() >= maxInFlight) { // Too many in flight, wait for one before fetching more
+                    add(entities, next(completionService, pending));
+                }
+                if (ordered) { // Hand the row to a worker, we'll wait on mappings in order
+                    FutureTask<E> task = new FutureTask<>(() -> mapper.apply(row));
+                    executor.execute(task);
+                    pending.add(task);
+                } else {
+                    pending.add(completionService.submit(() -> mapper.apply(row)));
+                }
+            }
+            while (!pending.isEmpty()) { // Collect the remaining mappings
+                add(entities, next(completionService, pending));
+            }
+        } finally {
+            for (Future<E> future : pending) { // Failed, don't waste the workers on the rest
+                future.cancel(false);
+            }
+        }
+        return entities;
+    }
+    
+    /**
+     * Wait for the next mapping to complete, the oldest
+     * one if ordered, otherwise whichever finishes first.
+     *
+     * @param completionService the service the mappings were submitted to, null if ordered
+     * @param pending the mappings in flight
+     * @param <E> the entity type
+     * @return the mapped entity
+     */
+    private <E> E next(CompletionService<E> completionService, @NonNull Deque<Future<E>> pending) {
+        try {
+            if (ordered) {
+                return pending.poll().get();
+            }
+            Future<E> completed = completionService.take();
+            pending.remove(completed);
+            return completed.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+    
+    /**
+     * Add the given entity, if it's not null.
+     *
+     * @param entities the entities to add to
+     * @param entity the entity to add
+     * @param <E> the entity type
+     */
+    private static <E> void add(@NonNull List<E> entities, E entity) {
+        if (entity != null) {
+            entities.add(entity);
+        }
+    }
+}
\ No newline at end of file
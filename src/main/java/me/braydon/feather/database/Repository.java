@@ -6,19 +6,35 @@
 package me.braydon.feather.database;
 
 import lombok.AccessLevel;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NonNull;
-import me.braydon.feather.FeatherSettings;
-import me.braydon.feather.annotation.Serializable;
-import me.braydon.feather.common.FieldUtils;
+import lombok.Setter;
+import me.braydon.feather.data.ChangeTracker;
+import me.braydon.feather.data.EntityMetadata;
+import me.braydon.feather.database.query.Query;
+import me.braydon.feather.database.resilience.CircuitBreaker;
+import me.braydon.feather.database.resilience.CircuitBreakerOpenException;
+import me.braydon.feather.database.resilience.RetryPolicy;
+import me.braydon.feather.metrics.MetricsRecorder;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * A repository belonging to a {@link IDatabase}.
@@ -28,8 +44,16 @@ import java.util.UUID;
  * @param <ID> the identifier for type for entities
  * @param <E> the entity type this repository stores
  */
-@AllArgsConstructor @Getter(AccessLevel.PROTECTED)
+@Getter(AccessLevel.PROTECTED)
 public abstract class Repository<D extends IDatabase<?, ?>, ID, E> {
+    /**
+     * The maximum amount of attempts at a compare and set,
+     * such as appending to a serialized collection field.
+     *
+     * @see #compareAndSet(String, BooleanSupplier) for compare and sets
+     */
+    protected static final int MAX_COMPARE_AND_SET_ATTEMPTS = 10;
+    
     /**
      * The database this repository belongs to.
      *
@@ -44,6 +68,95 @@ public abstract class Repository<D extends IDatabase<?, ?>, ID, E> {
      */
     @NonNull private final Class<? extends E> entityClass;
     
+    /**
+     * The cached metadata for the entity this repository uses.
+     *
+     * @see E for entity
+     */
+    @NonNull private final EntityMetadata<? extends E> entityMetadata;
+    
+    /**
+     * The amount of entities to fetch per
+     * round-trip when streaming entities.
+     *
+     * @see #stream() for streaming
+     */
+    @Getter @Setter private volatile int batchSize = 100;
+    
+    /**
+     * Whether loaded entities are tracked for changes.
+     * <p>
+     * When enabled, saving an entity that was loaded
+     * through this repository only writes the fields
+     * that changed since it was loaded or last saved,
+     * and whole number fields are incremented rather
+     * than overwritten.
+     * </p>
+     *
+     * @see ChangeTracker for tracking
+     */
+    @Getter @Setter private volatile boolean changeTracking;
+    
+    /**
+     * The tracker for the changes made to loaded entities.
+     */
+    @Getter(AccessLevel.NONE) @NonNull private final ChangeTracker<E> changeTracker;
+    
+    /**
+     * The recorder for the metrics of this
+     * repository, null to use the database's.
+     *
+     * @see #getMetrics() for the recorder in use
+     */
+    @Getter(AccessLevel.NONE) @Setter private volatile MetricsRecorder metrics;
+    
+    /**
+     * The tag identifying this repository in its metrics.
+     * <p>
+     * Defaults to the collection or key prefix
+     * of the repository, or the entity name.
+     * </p>
+     */
+    @Getter @Setter @NonNull private volatile String metricsTag;
+    
+    /**
+     * How failed operations are retried.
+     * <p>
+     * Only idempotent operations are retried, which are
+     * finds, counts, drops and saves without change
+     * tracking. Increments, pushes, set if absent's
+     * and saves of tracked entities are never retried,
+     * as they may have been applied before failing.
+     * </p>
+     *
+     * @see RetryPolicy#NONE for the default
+     */
+    @Getter @Setter @NonNull private volatile RetryPolicy retryPolicy = RetryPolicy.NONE;
+    
+    /**
+     * How entities loaded by {@link #findAll()} are
+     * mapped in parallel, null to map them one by one
+     * on the calling thread.
+     * <p>
+     * Worth enabling for large results of entities that
+     * are expensive to map, such as ones with big
+     * {@link me.braydon.feather.annotation.Serializable}
+     * fields, so fetching overlaps with mapping.
+     * </p>
+     *
+     * @see ParallelMapping for parallel mapping
+     */
+    @Getter @Setter private volatile ParallelMapping parallelMapping;
+    
+    @SuppressWarnings("unchecked")
+    public Repository(@NonNull D database, @NonNull Class<? extends E> entityClass) {
+        this.database = database;
+        this.entityClass = entityClass;
+        entityMetadata = EntityMetadata.of(entityClass);
+        changeTracker = new ChangeTracker<>((EntityMetadata<E>) entityMetadata);
+        metricsTag = entityClass.getSimpleName();
+    }
+    
     /**
      * Get the entity with the given id.
      *
@@ -54,6 +167,18 @@ public abstract class Repository<D extends IDatabase<?, ?>, ID, E> {
      */
     public abstract E find(@NonNull ID id);
     
+    /**
+     * Get the entities with the given ids
+     * in as few round-trips as possible.
+     *
+     * @param ids the entity ids
+     * @return the found entities keyed by their id, ids with no entity are absent
+     * @see ID for id
+     * @see E for entity
+     */
+    @NonNull
+    public abstract Map<ID, E> findAllById(@NonNull Collection<ID> ids);
+    
     /**
      * Get all entities within this repository.
      *
@@ -62,6 +187,47 @@ public abstract class Repository<D extends IDatabase<?, ?>, ID, E> {
      */
     public abstract List<E> findAll();
     
+    /**
+     * Get the entities matching the given query.
+     *
+     * @param query the query to run
+     * @return the matching entities
+     * @see Query for query
+     * @see E for entity
+     */
+    @NonNull
+    public abstract List<E> findWhere(@NonNull Query query);
+    
+    /**
+     * Stream all entities within this repository.
+     * <p>
+     * Entities are fetched in batches of {@link #getBatchSize()}
+     * and mapped lazily as the stream is consumed, so memory
+     * use stays constant regardless of the repository size.
+     * The returned stream holds a server-side cursor and must
+     * be closed once done with, e.g. with try-with-resources.
+     * </p>
+     *
+     * @return the entity stream
+     * @see E for entity
+     */
+    @NonNull
+    public abstract Stream<E> stream();
+    
+    /**
+     * Perform the given action for each
+     * entity within this repository.
+     *
+     * @param action the action to perform
+     * @see #stream() for streaming
+     * @see E for entity
+     */
+    public void forEach(@NonNull Consumer<? super E> action) {
+        try (Stream<E> stream = stream()) {
+            stream.forEach(action);
+        }
+    }
+    
     /**
      * Save the given entity to the database.
      *
@@ -80,6 +246,58 @@ public abstract class Repository<D extends IDatabase<?, ?>, ID, E> {
      */
     public abstract void saveAll(@NonNull E... entities);
     
+    /**
+     * Atomically increment a whole number field of the
+     * entity with the given id in a single round-trip.
+     * <p>
+     * If the entity or field doesn't exist yet, it's
+     * created holding only the id and the delta.
+     * </p>
+     *
+     * @param id the entity id
+     * @param field the name or key of the field to increment
+     * @param delta the amount to increment by, negative to decrement
+     * @return the value of the field after the increment
+     * @throws IllegalArgumentException if the field doesn't exist, isn't a whole number, or the delta or result doesn't fit its type
+     * @see ID for id
+     */
+    public abstract long increment(@NonNull ID id, @NonNull String field, long delta) throws IllegalArgumentException;
+    
+    /**
+     * Atomically append the given value to
+     * a collection field of the entity with
+     * the given id.
+     * <p>
+     * If the entity or field doesn't exist yet, it's
+     * created holding only the id and the value.
+     * </p>
+     *
+     * @param id the entity id
+     * @param field the name or key of the collection field to append to
+     * @param value the value to append
+     * @throws IllegalArgumentException if the field doesn't exist or isn't a collection
+     * @throws ConcurrentModificationException if other writers kept changing the field
+     * @see ID for id
+     */
+    public abstract void push(@NonNull ID id, @NonNull String field, Object value) throws IllegalArgumentException, ConcurrentModificationException;
+    
+    /**
+     * Atomically set a field of the entity with the given
+     * id, only if the field has no value yet.
+     * <p>
+     * If the entity doesn't exist yet, it's created
+     * holding only the id and the value.
+     * </p>
+     *
+     * @param id the entity id
+     * @param field the name or key of the field to set
+     * @param value the value to set
+     * @return whether the value was set
+     * @throws IllegalArgumentException if the field doesn't exist
+     * @see ID for id
+     */
+    public abstract boolean setIfAbsent(@NonNull ID id, @NonNull String field, @NonNull Object value) throws IllegalArgumentException;
+    
     /**
      * Get the amount of stored entities.
      *
@@ -105,6 +323,387 @@ public abstract class Repository<D extends IDatabase<?, ?>, ID, E> {
      */
     public abstract void drop(@NonNull E entity);
     
+    /**
+     * Drop the entities with the given ids
+     * in as few round-trips as possible.
+     *
+     * @param ids the entity ids to drop
+     * @see ID for id
+     * @see E for entity
+     */
+    public abstract void dropAllById(@NonNull Collection<ID> ids);
+    
+    /**
+     * Drop the given entities in as
+     * few round-trips as possible.
+     *
+     * @param entities the entities to drop
+     * @see E for entity
+     */
+    public abstract void dropAll(@NonNull E... entities);
+    
+    /**
+     * Get the recorder for the metrics of this repository.
+     *
+     * @return the recorder set on this repository, or the database's if none
+     */
+    @NonNull
+    public final MetricsRecorder getMetrics() {
+        MetricsRecorder metrics = this.metrics;
+        return metrics == null ? database.getMetrics() : metrics;
+    }
+    
+    /**
+     * Run the given operation through the circuit breaker
+     * of our database, retrying it if it's idempotent and
+     * failed with a transient error, and recording the
+     * latency and outcome of every attempt.
+     * <p>
+     * If the circuit breaker opens between attempts, the
+     * error that failed the previous attempt is attached
+     * to the rejection as a suppressed exception.
+     * </p>
+     *
+     * @param operation the name of the operation
+     * @param idempotent whether the operation can safely be run more than once
+     * @param action the operation to run
+     * @param <T> the type of result
+     * @return the operation result
+     * @throws CircuitBreakerOpenException if the circuit breaker is open
+     * @see #isTransient(Throwable) for transient errors
+     */
+    protected final <T> T record(@NonNull String operation, boolean idempotent, @NonNull Supplier<T> action) throws CircuitBreakerOpenException {
+        CircuitBreaker circuitBreaker = database.getCircuitBreaker();
+        RetryPolicy retryPolicy = this.retryPolicy;
+        int maxAttempts = idempotent ? retryPolicy.getMaxAttempts() : 1; // Only retry if it's safe to
+        Throwable lastFailure = null; // The error that failed the previous attempt, if any
+        for (int attempt = 1; ; attempt++) {
+            if (circuitBreaker != null) { // Fail fast while the database is down
+                try {
+                    circuitBreaker.acquire();
+                } catch (CircuitBreakerOpenException ex) {
+                    if (lastFailure != null) { // Don't lose why we were retrying
+                        ex.addSuppressed(lastFailure);
+                    }
+                    throw ex;
+                }
+            }
+            try {
+                T result = time(operation, action);
+                if (circuitBreaker != null) {
+                    circuitBreaker.onSuccess();
+                }
+                return result;
+            } catch (Throwable ex) {
+                onError(circuitBreaker, ex);
+                if (!isTransient(ex)) { // Retrying won't help
+                    throw ex;
+                }
+                if (attempt >= maxAttempts) { // Out of attempts
+                    throw ex;
+                }
+                lastFailure = ex;
+                try {
+                    TimeUnit.MILLISECONDS.sleep(retryPolicy.getBackoff(attempt));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw ex;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Run the given operation, see {@link #record(String, boolean, Supplier)}.
+     *
+     * @param operation the name of the operation
+     * @param idempotent whether the operation can safely be run more than once
+     * @param action the operation to run
+     * @throws CircuitBreakerOpenException if the circuit breaker is open
+     */
+    protected final void record(@NonNull String operation, boolean idempotent, @NonNull Runnable action) throws CircuitBreakerOpenException {
+        record(operation, idempotent, () -> {
+            action.run();
+            return null;
+        });
+    }
+    
+    /**
+     * Run the given batch operation, also recording the amount
+     * of entities, see {@link #record(String, boolean, Supplier)}.
+     *
+     * @param operation the name of the operation
+     * @param size the amount of entities in the batch
+     * @param idempotent whether the operation can safely be run more than once
+     * @param action the operation to run
+     * @throws CircuitBreakerOpenException if the circuit breaker is open
+     */
+    protected final void record(@NonNull String operation, int size, boolean idempotent, @NonNull Runnable action) throws CircuitBreakerOpenException {
+        getMetrics().recordBatchSize(metricsTag, operation, size);
+        record(operation, idempotent, action);
+    }
+    
+    /**
+     * Run the given non-blocking operation through the circuit
+     * breaker of our database, recording its latency and outcome.
+     * <p>
+     * Unlike {@link #record(String, boolean, Supplier)}, the
+     * operation is never retried. If the breaker is open, the
+     * returned future is failed right away.
+     * </p>
+     *
+     * @param operation the name of the operation
+     * @param action the operation to start
+     * @param <T> the type of result
+     * @return the future operation result
+     */
+    @NonNull
+    protected final <T> CompletableFuture<T> recordAsync(@NonNull String operation, @NonNull Supplier<CompletableFuture<T>> action) {
+        CircuitBreaker circuitBreaker = database.getCircuitBreaker();
+        MetricsRecorder metrics = getMetrics();
+        long start = metrics == MetricsRecorder.NOOP ? 0L : System.nanoTime(); // Only time the operation if recording
+        if (circuitBreaker != null) { // Fail fast while the database is down
+            try {
+                circuitBreaker.acquire();
+            } catch (CircuitBreakerOpenException ex) {
+                CompletableFuture<T> rejected = new CompletableFuture<>();
+                rejected.completeExceptionally(ex);
+                return rejected;
+            }
+        }
+        CompletableFuture<T> future;
+        try {
+            future = action.get();
+        } catch (Throwable ex) { // Failed to start the operation
+            future = new CompletableFuture<>();
+            future.completeExceptionally(ex);
+        }
+        return future.whenComplete((result, ex) -> {
+            if (metrics != MetricsRecorder.NOOP) {
+                metrics.recordOperation(metricsTag, operation, System.nanoTime() - start, ex == null);
+            }
+            if (ex == null) {
+                if (circuitBreaker != null) {
+                    circuitBreaker.onSuccess();
+                }
+            } else {
+                onError(circuitBreaker, ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+            }
+        });
+    }
+    
+    /**
+     * Map the given raw rows into entities, in parallel
+     * when {@link #getParallelMapping()} is set.
+     *
+     * @param rows the rows to map, fetched lazily on the calling thread
+     * @param mapper the function mapping a row into an entity, null to skip the row
+     * @param <R> the type of row
+     * @return the mapped entities
+     * @see E for entity
+     */
+    @NonNull
+    protected final <R> List<E> mapAll(@NonNull Iterator<R> rows, @NonNull Function<R, E> mapper) {
+        ParallelMapping parallelMapping = this.parallelMapping;
+        if (parallelMapping != null) {
+            return parallelMapping.map(rows, mapper);
+        }
+        List<E> entities = new ArrayList<>();
+        while (rows.hasNext()) {
+            E entity = mapper.apply(rows.next());
+            if (entity != null) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+    
+    /**
+     * Check if the given error thrown by an operation is
+     * transient, such as a dropped connection or a timeout,
+     * meaning the operation may succeed if retried.
+     * <p>
+     * Transient errors count towards opening the circuit
+     * breaker of our database, other errors don't.
+     * </p>
+     *
+     * @param ex the error
+     * @return whether the error is transient
+     */
+    protected boolean isTransient(@NonNull Throwable ex) {
+        return false;
+    }
+    
+    /**
+     * Check if the given error thrown by an operation is
+     * a reply from the database, such as a write conflict
+     * or a rejected command.
+     * <p>
+     * These prove the database is up, so they close the
+     * circuit breaker of our database like a success.
+     * Errors that are neither transient nor a reply, such
+     * as invalid arguments, don't affect the breaker.
+     * </p>
+     *
+     * @param ex the error
+     * @return whether the error is a reply from the database
+     */
+    protected boolean isReply(@NonNull Throwable ex) {
+        return ex instanceof ConcurrentModificationException; // Lost every compare and set, the database kept answering
+    }
+    
+    /**
+     * Report the given error thrown by an
+     * operation to the given circuit breaker.
+     *
+     * @param circuitBreaker the circuit breaker, null if none
+     * @param ex the error
+     */
+    private void onError(CircuitBreaker circuitBreaker, @NonNull Throwable ex) {
+        if (circuitBreaker == null) { // Nothing to report to
+            return;
+        }
+        if (isTransient(ex)) { // The database may be down
+            circuitBreaker.onFailure();
+        } else if (isReply(ex)) { // The database answered, the operation itself failed
+            circuitBreaker.onSuccess();
+        } else { // We failed before hearing back, this says nothing about the database
+            circuitBreaker.release();
+        }
+    }
+    
+    /**
+     * Run the given operation, recording its latency and outcome.
+     *
+     * @param operation the name of the operation
+     * @param action the operation to run
+     * @param <T> the type of result
+     * @return the operation result
+     */
+    private <T> T time(@NonNull String operation, @NonNull Supplier<T> action) {
+        MetricsRecorder metrics = getMetrics();
+        if (metrics == MetricsRecorder.NOOP) { // Not recording, skip the timing
+            return action.get();
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = action.get();
+            success = true;
+            return result;
+        } finally {
+            metrics.recordOperation(metricsTag, operation, System.nanoTime() - start, success);
+        }
+    }
+    
+    /**
+     * Get the field tagged with {@link me.braydon.feather.annotation.Id}
+     * within the entity this repository uses.
+     *
+     * @return the id field
+     * @throws IllegalArgumentException if the entity is missing an id field
+     */
+    @NonNull
+    protected final EntityMetadata.EntityField getIdField() throws IllegalArgumentException {
+        EntityMetadata.EntityField idField = entityMetadata.getIdField(); // The field annotated with @Id
+        if (idField == null) { // The entity is missing an id field
+            throw new IllegalArgumentException("No @Id annotated field found in " + entityClass.getSimpleName());
+        }
+        return idField;
+    }
+    
+    /**
+     * Resolve the given field of the entity this repository uses.
+     * <p>
+     * The field may be given by its Java name, in which case
+     * its key is resolved like any other field, or by its key.
+     * </p>
+     *
+     * @param field the name or key of the field
+     * @return the resolved field
+     * @throws IllegalArgumentException if the field doesn't exist
+     */
+    @NonNull
+    protected final EntityMetadata.EntityField resolveField(@NonNull String field) throws IllegalArgumentException {
+        for (EntityMetadata.EntityField entityField : entityMetadata.getFields()) {
+            if (entityField.getField().getName().equals(field)) {
+                return entityField;
+            }
+        }
+        EntityMetadata.EntityField entityField = entityMetadata.getField(field); // Not a Java field name, try the key
+        if (entityField == null) { // The entity has no such field
+            throw new IllegalArgumentException("No field " + field + " found in " + entityClass.getSimpleName());
+        }
+        return entityField;
+    }
+    
+    /**
+     * Resolve the given whole number field of the entity
+     * this repository uses, checking it can be
+     * incremented by the given delta.
+     *
+     * @param field the name or key of the field
+     * @param delta the amount to increment by
+     * @return the resolved field
+     * @throws IllegalArgumentException if the field doesn't exist, isn't a whole number, or the delta doesn't fit its type
+     */
+    @NonNull
+    protected final EntityMetadata.EntityField resolveIncrement(@NonNull String field, long delta) throws IllegalArgumentException {
+        EntityMetadata.EntityField entityField = resolveField(field);
+        if (!entityField.isWholeNumber()) { // Only whole numbers can be incremented
+            throw new IllegalArgumentException("Field " + entityField.getField().getName() + " is not a whole number");
+        }
+        if (!entityField.fitsIncrement(delta)) { // The delta would be truncated
+            throw new IllegalArgumentException("Delta " + delta + " doesn't fit within field " + entityField.getField().getName()
+                                                   + " of type " + entityField.getType().getSimpleName());
+        }
+        return entityField;
+    }
+    
+    /**
+     * Run the given compare and set attempt until it
+     * succeeds, backing off for a random, growing time
+     * between attempts so contending writers spread out.
+     *
+     * @param description what is being set, used in the error if we give up
+     * @param attempt the attempt, returning whether the value was set
+     * @throws ConcurrentModificationException if every attempt lost to another writer
+     */
+    protected static void compareAndSet(@NonNull String description, @NonNull BooleanSupplier attempt) throws ConcurrentModificationException {
+        for (int attempts = 1; attempts <= MAX_COMPARE_AND_SET_ATTEMPTS; attempts++) {
+            if (attempt.getAsBoolean()) {
+                return;
+            }
+            long backoff = Math.min(1L << attempts, 100L); // Double the backoff for every attempt, up to 100ms
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(ThreadLocalRandom.current().nextLong(backoff + 1L)));
+        }
+        throw new ConcurrentModificationException(description + " was modified concurrently "
+                                                      + MAX_COMPARE_AND_SET_ATTEMPTS + " times in a row, giving up");
+    }
+    
+    /**
+     * Append the given value to the stored
+     * form of the given collection field.
+     *
+     * @param field the collection field
+     * @param stored the stored form of the collection, null if none
+     * @param value the value to append
+     * @return the stored form of the collection with the value appended
+     * @throws IllegalArgumentException if the field isn't a collection
+     */
+    @SuppressWarnings("unchecked")
+    protected static Object appendStored(@NonNull EntityMetadata.EntityField field, Object stored, Object value) throws IllegalArgumentException {
+        if (!Collection.class.isAssignableFrom(field.getType())) { // We can only append to collections
+            throw new IllegalArgumentException("Field " + field.getField().getName() + " is not a collection");
+        }
+        Collection<Object> collection = (Collection<Object>) field.fromStored(stored);
+        if (collection == null) { // No collection yet, start a new one
+            collection = Set.class.isAssignableFrom(field.getType()) ? new LinkedHashSet<>() : new ArrayList<>();
+        }
+        collection.add(value);
+        return field.toStored(collection);
+    }
+    
     /**
      * Construct a new entity from the given mapped data.
      *
@@ -116,33 +715,52 @@ public abstract class Repository<D extends IDatabase<?, ?>, ID, E> {
         if (mappedData == null) { // No mapped data given
             return null;
         }
-        try {
-            Constructor<? extends E> constructor = entityClass.getConstructor(); // Get the no args constructor
-            E entity = constructor.newInstance(); // Create the entity
-            
-            // Get the field tagged with @Id
-            for (Field field : entityClass.getDeclaredFields()) {
-                String key = FieldUtils.extractKey(field); // The key of the database field
-                Class<?> type = field.getType(); // The type of the field
-                Object value = mappedData.get(key); // The value of the field
-                
-                // Field is serializable and is a string, deserialize it using Gson
-                if (field.isAnnotationPresent(Serializable.class) && value.getClass() == String.class) {
-                    value = FeatherSettings.getGson().fromJson((String) value, type);
-                } else if (type == UUID.class && value != null) { // Type is a UUID, convert it
-                    value = UUID.fromString((String) value);
-                }
-                
-                // Set the value of the field
-                field.setAccessible(true);
-                field.set(entity, value);
-            }
-            return entity;
-        } catch (NoSuchMethodException ex) { // We need our no args constructor
-            throw new IllegalStateException("Entity " + entityClass.getName() + " is missing no args constructor");
-        } catch (InvocationTargetException | InstantiationException | IllegalAccessException ex) {
-            ex.printStackTrace();
+        MetricsRecorder metrics = getMetrics();
+        long start = metrics == MetricsRecorder.NOOP ? 0L : System.nanoTime(); // Only time the mapping if recording
+        E entity = entityMetadata.newInstance(); // Create the entity
+        for (EntityMetadata.EntityField field : entityMetadata.getFields()) {
+            field.write(entity, mappedData.get(field.getKey())); // Set the value of the field
         }
-        return null;
+        if (metrics != MetricsRecorder.NOOP) {
+            metrics.recordMapping(metricsTag, "read", System.nanoTime() - start);
+        }
+        return track(entity);
+    }
+    
+    /**
+     * Take a snapshot of the given loaded or
+     * saved entity, if change tracking is enabled.
+     *
+     * @param entity the entity to track
+     * @return the entity
+     * @see E for entity
+     */
+    protected final E track(E entity) {
+        if (changeTracking && entity != null) {
+            changeTracker.track(entity);
+        }
+        return entity;
+    }
+    
+    /**
+     * Get the changes made to the given entity
+     * since it was loaded or last saved.
+     *
+     * @param entity the entity to diff
+     * @return the changes, null if the entity has to be written in full
+     * @see E for entity
+     */
+    protected final ChangeTracker.ChangeSet diff(@NonNull E entity) {
+        return changeTracking ? changeTracker.diff(entity) : null;
+    }
+    
+    /**
+     * Stop tracking the given dropped entity.
+     *
+     * @param entity the entity to stop tracking
+     * @see E for entity
+     */
+    protected final void forget(@NonNull E entity) {
+        changeTracker.forget(entity);
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@
  */
 package me.braydon.feather.database.impl.mongodb;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.mongodb.BasicDBObject;
 import com.mongodb.ConnectionString;
 import com.mongodb.client.MongoClient;
@@ -12,7 +13,15 @@ import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
+import me.braydon.feather.database.HealthMonitor;
 import me.braydon.feather.database.IDatabase;
+import me.braydon.feather.database.resilience.CircuitBreaker;
+import me.braydon.feather.metrics.MetricsRecorder;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The {@link IDatabase} implementation for MongoDB.
@@ -33,6 +42,33 @@ public class MongoDB implements IDatabase<MongoClient, ConnectionString> {
      */
     @Getter private MongoDatabase database;
     
+    /**
+     * The executor to run async repository operations on.
+     * <p>
+     * The driver is blocking, so this pool is sized to
+     * the connection pool, allowing every connection
+     * to be in use without parking the caller threads.
+     * </p>
+     */
+    @Getter private ExecutorService executor;
+    
+    /**
+     * The recorder for the metrics of this database.
+     *
+     * @see MetricsRecorder#NOOP for the default
+     */
+    @Getter @Setter @NonNull private volatile MetricsRecorder metrics = MetricsRecorder.NOOP;
+    
+    /**
+     * The monitor pinging this database in the background.
+     */
+    @Getter @NonNull private final HealthMonitor healthMonitor = new HealthMonitor(this, () -> database.runCommand(new BasicDBObject("ping", "1")));
+    
+    /**
+     * The circuit breaker guarding the repositories of this database.
+     */
+    @Getter @NonNull private final CircuitBreaker circuitBreaker = new CircuitBreaker("MongoDB");
+    
     /**
      * Get the name of this database.
      *
@@ -65,14 +101,26 @@ public class MongoDB implements IDatabase<MongoClient, ConnectionString> {
         if (client != null) { // We have a client, close it first
             client.close();
         }
+        if (executor != null) { // We have an executor, shut it down first
+            executor.shutdown();
+        }
         client = MongoClients.create(credentials); // Create a new client
         database = client.getDatabase(databaseName); // Get the database
+        
+        // Create the executor for async operations
+        Integer poolSize = credentials.getMaxConnectionPoolSize(); // The max connection pool size, null if the driver default
+        executor = Executors.newFixedThreadPool(poolSize == null || poolSize <= 0 ? 100 : poolSize, new ThreadFactoryBuilder()
+                                                                                                        .setNameFormat("Feather MongoDB Async #%d")
+                                                                                                        .setDaemon(true)
+                                                                                                        .build());
+        healthMonitor.start(); // Start pinging the database
     }
     
     /**
      * Check if this database is connected.
      *
      * @return the database connection state
+     * @see HealthMonitor#isHealthy() for whether the server is responding
      */
     @Override
     public boolean isConnected() {
@@ -80,19 +128,18 @@ public class MongoDB implements IDatabase<MongoClient, ConnectionString> {
     }
     
     /**
-     * Get the latency to this database.
+     * Get the latency to this database, as
+     * measured by the last health probe.
      *
-     * @return the latency, -1 if not connected
+     * @return the latency in milliseconds, -1 if not connected or not probed yet
      */
     @Override
     public long getLatency() {
-        if (!isConnected()) { // Not connected
+        HealthMonitor.LatencyStats stats = healthMonitor.getStats();
+        if (!isConnected() || stats.getSamples() == 0) { // Not connected or not probed yet
             return -1L;
         }
-        // Return ping
-        long before = System.currentTimeMillis();
-        database.runCommand(new BasicDBObject("ping", "1"));
-        return System.currentTimeMillis() - before;
+        return TimeUnit.NANOSECONDS.toMillis(stats.getLast());
     }
     
     /**
@@ -115,7 +162,7 @@ public class MongoDB implements IDatabase<MongoClient, ConnectionString> {
      * @param collectionName the collection name for the repository
      * @param entityClass the class of the entity the repository uses
      * @return the repository instance
-     * @throws IllegalStateException if not connected
+     * @throws IllegalStateException if not connected, or a compound index of the entity expires documents
      * @see MongoRepository for repository
      */
     @NonNull
@@ -133,9 +180,14 @@ public class MongoDB implements IDatabase<MongoClient, ConnectionString> {
      */
     @Override
     public void close() {
+        healthMonitor.stop();
+        if (executor != null) {
+            executor.shutdown();
+        }
         if (client != null) {
             client.close();
         }
+        executor = null;
         client = null;
         database = null;
     }
@@ -5,23 +5,65 @@
  */
 package me.braydon.feather.database.impl.mongodb;
 
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoException;
+import com.mongodb.MongoNodeIsRecoveringException;
+import com.mongodb.MongoNotPrimaryException;
+import com.mongodb.MongoServerException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
 import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
 import lombok.NonNull;
-import me.braydon.feather.common.Tuple;
+import me.braydon.feather.FeatherSettings;
+import me.braydon.feather.data.ChangeTracker;
+import me.braydon.feather.data.EntityMetadata;
+import me.braydon.feather.database.AsyncRepository;
 import me.braydon.feather.database.Repository;
 import me.braydon.feather.database.impl.mongodb.annotation.Index;
+import me.braydon.feather.database.impl.mongodb.codec.EntityCodecProvider;
+import me.braydon.feather.database.impl.mongodb.codec.JsonBsonConverter;
+import me.braydon.feather.database.query.Filter;
+import me.braydon.feather.database.query.Query;
+import org.bson.BsonValue;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.conversions.Bson;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The {@link MongoDB} {@link Repository} implementation.
@@ -34,11 +76,25 @@ public class MongoRepository<ID, E> extends Repository<MongoDB, ID, E> {
     /**
      * The {@link MongoCollection} to use for this repository.
      */
-    @NonNull private final MongoCollection<Document> collection;
+    @NonNull private final MongoCollection<E> collection;
     
+    /**
+     * The non-blocking view of this repository.
+     */
+    @NonNull private final AsyncRepository<ID, E> async;
+    
+    @SuppressWarnings("unchecked")
     public MongoRepository(@NonNull MongoDB database, @NonNull Class<? extends E> entityClass, @NonNull MongoCollection<Document> collection) {
         super(database, entityClass);
-        this.collection = collection;
+        setMetricsTag(collection.getNamespace().getCollectionName());
+        
+        // Read and write entities directly using our entity codec
+        this.collection = collection.withDocumentClass((Class<E>) entityClass).withCodecRegistry(CodecRegistries.fromRegistries(
+            CodecRegistries.fromProviders(new EntityCodecProvider(getEntityMetadata(), this)),
+            collection.getCodecRegistry()
+        ));
+        async = new MongoAsyncRepository();
+        createIndexes();
     }
     
     /**
@@ -64,61 +120,565 @@ public class MongoRepository<ID, E> extends Repository<MongoDB, ID, E> {
      * @see E for entity
      */
     public E find(@NonNull String idKey, @NonNull ID id) {
-        return newEntity(collection.find(new Document(idKey, id.toString())).first());
+        return record("find", true, () -> track(collection.find(Filters.eq(idKey, getIdField().toStored(id))).first()));
+    }
+    
+    /**
+     * Get the entities with the given ids using a single {@code $in} query.
+     *
+     * @param ids the entity ids
+     * @return the found entities keyed by their id, ids with no entity are absent
+     * @see ID for id
+     * @see E for entity
+     */
+    @Override @NonNull
+    public Map<ID, E> findAllById(@NonNull Collection<ID> ids) {
+        return findAllById("_id", ids);
+    }
+    
+    /**
+     * Get the entities with the given ids using a single {@code $in} query.
+     *
+     * @param idKey the key of the id
+     * @param ids the entity ids
+     * @return the found entities keyed by their id, ids with no entity are absent
+     * @see ID for id
+     * @see E for entity
+     */
+    @NonNull
+    public Map<ID, E> findAllById(@NonNull String idKey, @NonNull Collection<ID> ids) {
+        return record("findAllById", true, () -> {
+            if (ids.isEmpty()) { // Nothing to find
+                return Collections.emptyMap();
+            }
+            Map<Object, ID> idsByKey = new HashMap<>(); // The requested ids, keyed by their stored form
+            for (ID id : ids) {
+                idsByKey.put(getIdField().toStored(id), id);
+            }
+            EntityMetadata.EntityField idField = getEntityMetadata().getField(idKey); // The field holding the id
+            if (idField == null) { // The entity has no field for the id key
+                throw new IllegalArgumentException("No field with key " + idKey + " found in " + getEntityClass().getSimpleName());
+            }
+            Map<ID, E> entities = new HashMap<>(); // The entities to return
+            try (MongoCursor<E> cursor = collection.find(Filters.in(idKey, idsByKey.keySet())).batchSize(getBatchSize()).cursor()) {
+                while (cursor.hasNext()) {
+                    E entity = track(cursor.next());
+                    entities.put(idsByKey.get(idField.read(entity)), entity);
+                }
+            }
+            return Collections.unmodifiableMap(entities);
+        });
     }
     
     /**
      * Get all entities within this repository.
+     * <p>
+     * With {@link #getParallelMapping()} set, the raw BSON
+     * documents are fetched instead, and decoded by the
+     * mapping workers while the cursor fetches more.
+     * </p>
      *
      * @return the entities
      * @see E for entity
      */
     @Override
     public List<E> findAll() {
-        List<E> entities = new ArrayList<>(); // The entities to return
-        try (MongoCursor<Document> cursor = collection.find().cursor()) {
-            while (cursor.hasNext()) { // Add the entity to the list
-                entities.add(newEntity(cursor.next()));
+        return record("findAll", true, () -> {
+            if (getParallelMapping() != null) { // Decode the raw documents in parallel
+                Codec<E> codec = collection.getCodecRegistry().get(collection.getDocumentClass()); // Our entity codec
+                try (MongoCursor<RawBsonDocument> cursor = collection.withDocumentClass(RawBsonDocument.class).find().cursor()) {
+                    return Collections.unmodifiableList(mapAll(cursor, document -> track(document.decode(codec))));
+                }
             }
-        }
-        return Collections.unmodifiableList(entities);
+            List<E> entities = new ArrayList<>(); // The entities to return
+            try (MongoCursor<E> cursor = collection.find().cursor()) {
+                while (cursor.hasNext()) { // Add the entity to the list
+                    entities.add(track(cursor.next()));
+                }
+            }
+            return Collections.unmodifiableList(entities);
+        });
+    }
+    
+    /**
+     * Get the entities matching the given query.
+     * <p>
+     * The filters, sort order, skip, limit and
+     * projection are all applied server-side.
+     * </p>
+     *
+     * @param query the query to run
+     * @return the matching entities
+     * @see Query for query
+     * @see E for entity
+     */
+    @Override @NonNull
+    public List<E> findWhere(@NonNull Query query) {
+        return record("findWhere", true, () -> {
+            List<Bson> filters = new ArrayList<>(); // The filters to apply
+            for (Filter filter : query.getFilters()) {
+                filters.add(toBson(filter));
+            }
+            FindIterable<E> iterable = collection.find(filters.isEmpty() ? new Document() : Filters.and(filters))
+                                           .batchSize(getBatchSize())
+                                           .skip(query.getSkip())
+                                           .limit(query.getLimit());
+            if (!query.getSorts().isEmpty()) { // Apply the sort order
+                List<Bson> sorts = new ArrayList<>();
+                for (Map.Entry<String, Boolean> entry : query.getSorts().entrySet()) {
+                    sorts.add(entry.getValue() ? Sorts.ascending(entry.getKey()) : Sorts.descending(entry.getKey()));
+                }
+                iterable.sort(Sorts.orderBy(sorts));
+            }
+            if (!query.getProjection().isEmpty()) { // Only fetch the selected fields, always including the id
+                Set<String> keys = new LinkedHashSet<>(query.getProjection());
+                keys.add(getIdField().getKey());
+                iterable.projection(Projections.include(new ArrayList<>(keys)));
+            }
+            List<E> entities = new ArrayList<>(); // The entities to return
+            try (MongoCursor<E> cursor = iterable.cursor()) {
+                while (cursor.hasNext()) {
+                    entities.add(track(cursor.next()));
+                }
+            }
+            return Collections.unmodifiableList(entities);
+        });
+    }
+    
+    /**
+     * Stream all entities within this repository.
+     * <p>
+     * Entities are decoded lazily from a {@link MongoCursor}
+     * that fetches {@link #getBatchSize()} documents at a time.
+     * </p>
+     *
+     * @return the entity stream
+     * @see E for entity
+     */
+    @Override @NonNull
+    public Stream<E> stream() {
+        MongoCursor<E> cursor = collection.find().batchSize(getBatchSize()).cursor(); // The cursor to stream from
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                   .map(this::track)
+                   .onClose(cursor::close);
     }
     
     /**
      * Save the given entities.
+     * <p>
+     * When change tracking is enabled, tracked entities only
+     * {@code $set} their changed fields and {@code $inc} their
+     * changed whole number fields, unchanged entities are
+     * skipped entirely.
+     * </p>
      *
      * @param entities the entities to save
      * @see E for entity
      */
     @Override
     public void saveAll(@NonNull E... entities) {
-        List<UpdateOneModel<Document>> updateModels = new ArrayList<>(); // The update models to bulk write
-        
-        for (E entity : entities) {
-            me.braydon.feather.data.Document<Object> document = new me.braydon.feather.data.Document<>(entity); // Create a document from the entity
+        record("saveAll", entities.length, !isChangeTracking(), () -> {
+            EntityMetadata.EntityField idField = getIdField(); // The field annotated with @Id
+            List<UpdateOneModel<E>> updateModels = new ArrayList<>(); // The update models to bulk write
             
-            // Add our update model to the list
-            updateModels.add(new UpdateOneModel<>(
-                Filters.eq(document.getIdKey(), document.getKey()),
-                new Document("$set", new Document(document.toMappedData())),
-                new UpdateOptions().upsert(true)
-            ));
+            for (E entity : entities) {
+                ChangeTracker.ChangeSet changes = diff(entity); // The changes made to the entity
+                if (changes != null && changes.isEmpty()) { // Nothing changed, skip it
+                    continue;
+                }
+                // Add our update model to the list, untracked entities
+                // are encoded straight to BSON by our entity codec
+                updateModels.add(new UpdateOneModel<>(
+                    Filters.eq(idField.getKey(), idField.read(entity)),
+                    changes == null || !canUpdatePartially(changes) ? new Document("$set", entity) : toUpdate(changes),
+                    new UpdateOptions().upsert(true)
+                ));
+            }
             
-            // Create indexes for @Index fields specified in the entity
-            for (Map.Entry<String, Tuple<Field, Object>> mappedEntry : document.getMappedData().entrySet()) {
-                java.lang.reflect.Field field = mappedEntry.getValue().getLeft();
-                if (field.isAnnotationPresent(Index.class)) {
-                    collection.createIndex(Indexes.text(mappedEntry.getKey()));
+            // We have update models to execute, bulk write them
+            if (!updateModels.isEmpty()) {
+                collection.bulkWrite(updateModels);
+            }
+            for (E entity : entities) { // Saved, take new snapshots
+                track(entity);
+            }
+        });
+    }
+    
+    /**
+     * Check if the given changes can be written
+     * as a partial update.
+     * <p>
+     * Serializable fields stored as native subdocuments
+     * are only written by our entity codec, so entities
+     * with such changes are written in full.
+     * </p>
+     *
+     * @param changes the changes to check
+     * @return whether the changes can be written partially
+     */
+    private boolean canUpdatePartially(@NonNull ChangeTracker.ChangeSet changes) {
+        if (!FeatherSettings.isNativeMongoDocuments()) {
+            return true;
+        }
+        for (String key : changes.getUpdated().keySet()) {
+            if (getEntityMetadata().getField(key).isSerializable()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Build the partial update for the given changes.
+     *
+     * @param changes the changes to build the update for
+     * @return the update
+     */
+    @NonNull
+    private Document toUpdate(@NonNull ChangeTracker.ChangeSet changes) {
+        Document update = new Document();
+        if (!changes.getUpdated().isEmpty()) {
+            update.put("$set", new Document(changes.getUpdated()));
+        }
+        if (!changes.getIncrements().isEmpty()) {
+            Document increments = new Document();
+            for (Map.Entry<String, Long> entry : changes.getIncrements().entrySet()) {
+                increments.put(entry.getKey(), toIncrement(getEntityMetadata().getField(entry.getKey()), entry.getValue()));
+            }
+            update.put("$inc", increments);
+        }
+        return update;
+    }
+    
+    /**
+     * Atomically increment a whole number field of the
+     * entity with the given id using {@code $inc}.
+     * <p>
+     * An overflowing {@code $inc} would widen the stored
+     * field past its type, so the document is only matched
+     * while the result still fits. An existing document that
+     * doesn't match is then rejected by the upsert, as
+     * its id is already taken.
+     * </p>
+     *
+     * @param id the entity id
+     * @param field the name or key of the field to increment
+     * @param delta the amount to increment by, negative to decrement
+     * @return the value of the field after the increment
+     * @throws IllegalArgumentException if the field doesn't exist, isn't a whole number, or the delta or result doesn't fit its type
+     * @see ID for id
+     */
+    @Override
+    public long increment(@NonNull ID id, @NonNull String field, long delta) throws IllegalArgumentException {
+        EntityMetadata.EntityField entityField = resolveIncrement(field, delta); // The field to increment
+        String key = entityField.getKey();
+        Bson filter = idFilter(id);
+        if (delta != 0L) { // Only match documents the increment can't overflow
+            Bson fits = delta > 0L ? Filters.lte(key, entityField.getMaxValue() - delta) : Filters.gte(key, entityField.getMinValue() - delta);
+            filter = Filters.and(filter, Filters.or(Filters.exists(key, false), fits));
+        }
+        Bson matching = filter;
+        return record("increment", false, () -> {
+            Document updated;
+            try {
+                updated = documents().findOneAndUpdate(
+                    matching,
+                    Updates.inc(key, toIncrement(entityField, delta)),
+                    new FindOneAndUpdateOptions().upsert(true)
+                        .returnDocument(ReturnDocument.AFTER)
+                        .projection(Projections.include(key))
+                );
+            } catch (MongoServerException ex) {
+                if (ErrorCategory.fromErrorCode(ex.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                    throw ex;
+                }
+                throw new IllegalArgumentException("Incrementing field " + entityField.getField().getName() + " by " + delta
+                                                       + " overflows its type " + entityField.getType().getSimpleName(), ex);
+            }
+            return updated == null ? delta : ((Number) updated.get(key)).longValue();
+        });
+    }
+    
+    /**
+     * Atomically append the given value to a collection
+     * field of the entity with the given id.
+     * <p>
+     * Fields stored as BSON arrays are appended to with
+     * {@code $push}. Fields stored as serialized strings
+     * are read, appended to and written back only if they
+     * weren't changed in the meantime, retrying otherwise,
+     * up to {@link #MAX_COMPARE_AND_SET_ATTEMPTS} times.
+     * </p>
+     *
+     * @param id the entity id
+     * @param field the name or key of the collection field to append to
+     * @param value the value to append
+     * @throws IllegalArgumentException if the field doesn't exist or isn't a collection
+     * @throws ConcurrentModificationException if other writers kept changing the field
+     * @see ID for id
+     */
+    @Override
+    public void push(@NonNull ID id, @NonNull String field, Object value) throws IllegalArgumentException, ConcurrentModificationException {
+        EntityMetadata.EntityField entityField = resolveField(field); // The field to append to
+        if (!Collection.class.isAssignableFrom(entityField.getType())) { // We can only append to collections
+            throw new IllegalArgumentException("Field " + entityField.getField().getName() + " is not a collection");
+        }
+        record("push", false, () -> {
+            String key = entityField.getKey();
+            Bson filter = idFilter(id);
+            if (!entityField.isSerializable()) { // Stored as an array, push to it
+                Object element = value instanceof UUID ? value.toString() : value; // UUIDs are stored as strings
+                collection.updateOne(filter, Updates.push(key, element), new UpdateOptions().upsert(true));
+                return;
+            }
+            if (FeatherSettings.isNativeMongoDocuments()) { // Stored as an array subdocument, push the serialized value
+                collection.updateOne(filter, Updates.push(key, toBsonValue(value)), new UpdateOptions().upsert(true));
+                return;
+            }
+            compareAndSet("Field " + key + " of " + id, () -> { // Stored as a string, compare and set until no other writer got in between
+                Document found = documents().find(filter).projection(Projections.include(key)).first();
+                Object stored = found == null ? null : found.get(key);
+                UpdateResult result = collection.updateOne(
+                    Filters.and(filter, Filters.eq(key, stored)),
+                    Updates.set(key, appendStored(entityField, stored, value)),
+                    new UpdateOptions().upsert(found == null)
+                );
+                return result.getMatchedCount() > 0L || result.getUpsertedId() != null;
+            });
+        });
+    }
+    
+    /**
+     * Atomically set a field of the entity with the given
+     * id, only if the field has no value yet.
+     * <p>
+     * This is done with a single pipeline update using
+     * {@code $ifNull}, unlike {@code $setOnInsert}, this
+     * also fills in the field on existing entities.
+     * </p>
+     *
+     * @param id the entity id
+     * @param field the name or key of the field to set
+     * @param value the value to set
+     * @return whether the value was set
+     * @throws IllegalArgumentException if the field doesn't exist
+     * @see ID for id
+     */
+    @Override
+    public boolean setIfAbsent(@NonNull ID id, @NonNull String field, @NonNull Object value) throws IllegalArgumentException {
+        EntityMetadata.EntityField entityField = resolveField(field); // The field to set
+        return record("setIfAbsent", false, () -> {
+            Object stored = entityField.isSerializable() && FeatherSettings.isNativeMongoDocuments() ? toBsonValue(value) : entityField.toStored(value);
+            Document expression = new Document("$ifNull", Arrays.asList("$" + entityField.getKey(), new Document("$literal", stored)));
+            UpdateResult result = collection.updateOne(
+                idFilter(id),
+                Collections.singletonList(new Document("$set", new Document(entityField.getKey(), expression))),
+                new UpdateOptions().upsert(true)
+            );
+            return result.getUpsertedId() != null || result.getModifiedCount() > 0L;
+        });
+    }
+    
+    /**
+     * Check if the given error thrown by an operation is transient.
+     * <p>
+     * Network errors, server selection timeouts, primary
+     * step downs and errors labelled transient by the
+     * server are transient, the driver reconnects
+     * on its own in the background.
+     * </p>
+     *
+     * @param ex the error
+     * @return whether the error is transient
+     */
+    @Override
+    protected boolean isTransient(@NonNull Throwable ex) {
+        return ex instanceof MongoSocketException
+                   || ex instanceof MongoTimeoutException
+                   || ex instanceof MongoNotPrimaryException
+                   || ex instanceof MongoNodeIsRecoveringException
+                   || (ex instanceof MongoException && ((MongoException) ex).hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL));
+    }
+    
+    /**
+     * Check if the given error thrown by an operation is a reply
+     * from the server, such as a write error or a failed command.
+     *
+     * @param ex the error
+     * @return whether the error is a reply from the server
+     */
+    @Override
+    protected boolean isReply(@NonNull Throwable ex) {
+        return ex instanceof MongoServerException || super.isReply(ex);
+    }
+    
+    /**
+     * Get the filter matching the entity with the given id.
+     *
+     * @param id the entity id
+     * @return the filter
+     * @see ID for id
+     */
+    @NonNull
+    private Bson idFilter(@NonNull ID id) {
+        EntityMetadata.EntityField idField = getIdField(); // The field annotated with @Id
+        return Filters.eq(idField.getKey(), idField.toStored(id));
+    }
+    
+    /**
+     * Get the given increment as the BSON type
+     * of the given field, so incrementing an
+     * int field doesn't widen it to a long.
+     *
+     * @param field the field to increment
+     * @param delta the amount to increment by
+     * @return the increment
+     * @throws IllegalArgumentException if the delta doesn't fit the field type
+     */
+    @NonNull
+    private static Number toIncrement(@NonNull EntityMetadata.EntityField field, long delta) throws IllegalArgumentException {
+        if (!field.fitsIncrement(delta)) { // Narrowing would truncate the delta
+            throw new IllegalArgumentException("Delta " + delta + " doesn't fit within field " + field.getField().getName());
+        }
+        Class<?> type = field.getType();
+        if (type == int.class || type == Integer.class || type == short.class || type == Short.class || type == byte.class || type == Byte.class) {
+            return (int) delta;
+        }
+        return delta;
+    }
+    
+    /**
+     * Convert the given serializable value
+     * to a native BSON value.
+     *
+     * @param value the value to convert
+     * @return the BSON value
+     */
+    @NonNull
+    private static BsonValue toBsonValue(Object value) {
+        return JsonBsonConverter.toBson(FeatherSettings.getGson().toJsonTree(value));
+    }
+    
+    /**
+     * Get the collection of this repository
+     * as plain, untyped documents.
+     *
+     * @return the document collection
+     */
+    @NonNull
+    private MongoCollection<Document> documents() {
+        return collection.withDocumentClass(Document.class);
+    }
+    
+    /**
+     * Convert the given query filter into a Bson filter.
+     *
+     * @param filter the filter to convert
+     * @return the Bson filter
+     */
+    @NonNull
+    private static Bson toBson(@NonNull Filter filter) {
+        String key = filter.getKey();
+        Object value = filter.getValue();
+        switch (filter.getOperator()) {
+            case NE:
+                return Filters.ne(key, value);
+            case GT:
+                return Filters.gt(key, value);
+            case GTE:
+                return Filters.gte(key, value);
+            case LT:
+                return Filters.lt(key, value);
+            case LTE:
+                return Filters.lte(key, value);
+            case IN:
+                return Filters.in(key, (List<?>) value);
+            default:
+                return Filters.eq(key, value);
+        }
+    }
+    
+    /**
+     * Create the indexes for the {@link Index}
+     * fields specified in the entity.
+     * <p>
+     * This is done once, when the repository is created,
+     * with all indexes sent in a single round-trip.
+     * </p>
+     *
+     * @throws IllegalStateException if a compound index expires documents
+     */
+    private void createIndexes() throws IllegalStateException {
+        Map<String, List<EntityMetadata.EntityField>> groups = new LinkedHashMap<>(); // The fields of each index
+        for (EntityMetadata.EntityField field : getEntityMetadata().getFields()) {
+            Index index = field.getField().getAnnotation(Index.class);
+            if (index == null) { // Not an indexed field
+                continue;
+            }
+            String group = index.name(); // The index this field belongs to
+            if (group.isEmpty()) { // Unnamed, text fields share a single index, other fields get their own
+                group = index.type() == Index.Type.TEXT ? "$text" : "$" + field.getKey();
+            }
+            groups.computeIfAbsent(group, key -> new ArrayList<>()).add(field);
+        }
+        List<IndexModel> indexModels = new ArrayList<>(); // The indexes to create
+        for (Map.Entry<String, List<EntityMetadata.EntityField>> entry : groups.entrySet()) {
+            List<Bson> keys = new ArrayList<>(); // The keys of the index
+            IndexOptions options = new IndexOptions();
+            if (!entry.getKey().startsWith("$")) { // The index was explicitly named
+                options.name(entry.getKey());
+            }
+            for (EntityMetadata.EntityField field : entry.getValue()) {
+                Index index = field.getField().getAnnotation(Index.class);
+                switch (index.type()) {
+                    case ASCENDING:
+                        keys.add(Indexes.ascending(field.getKey()));
+                        break;
+                    case DESCENDING:
+                        keys.add(Indexes.descending(field.getKey()));
+                        break;
+                    case HASHED:
+                        keys.add(Indexes.hashed(field.getKey()));
+                        break;
+                    default:
+                        keys.add(Indexes.text(field.getKey()));
+                        break;
+                }
+                if (index.unique()) {
+                    options.unique(true);
+                }
+                if (index.expireAfterSeconds() >= 0L) {
+                    if (entry.getValue().size() > 1) { // MongoDB only expires documents with single field indexes
+                        throw new IllegalStateException("Field " + field.getField().getName() + " expires documents, but shares a compound index");
+                    }
+                    options.expireAfter(index.expireAfterSeconds(), TimeUnit.SECONDS);
                 }
             }
+            indexModels.add(new IndexModel(keys.size() == 1 ? keys.get(0) : Indexes.compoundIndex(keys), options));
         }
         
-        // We have update models to execute, bulk write them
-        if (!updateModels.isEmpty()) {
-            collection.bulkWrite(updateModels);
+        // We have indexes to create, create them in bulk
+        if (!indexModels.isEmpty()) {
+            collection.createIndexes(indexModels);
         }
     }
     
+    /**
+     * Get the non-blocking view of this repository.
+     * <p>
+     * Operations are run on the executor of the
+     * {@link MongoDB} this repository belongs to.
+     * </p>
+     *
+     * @return the async repository
+     * @see MongoDB#getExecutor() for the executor
+     */
+    @NonNull
+    public AsyncRepository<ID, E> async() {
+        return async;
+    }
+    
     /**
      * Get the amount of stored entities.
      *
@@ -127,7 +687,7 @@ public class MongoRepository<ID, E> extends Repository<MongoDB, ID, E> {
      */
     @Override
     public long count() {
-        return collection.countDocuments();
+        return record("count", true, () -> collection.countDocuments());
     }
     
     /**
@@ -151,7 +711,9 @@ public class MongoRepository<ID, E> extends Repository<MongoDB, ID, E> {
      * @see E for entity
      */
     public void dropById(@NonNull String idKey, @NonNull ID id) {
-        collection.deleteOne(new Document(idKey, id.toString())); // Delete the entity
+        record("dropById", true, () -> {
+            collection.deleteOne(Filters.eq(idKey, getIdField().toStored(id))); // Delete the entity
+        });
     }
     
     /**
@@ -162,7 +724,160 @@ public class MongoRepository<ID, E> extends Repository<MongoDB, ID, E> {
      */
     @Override
     public void drop(@NonNull E entity) {
-        me.braydon.feather.data.Document<Object> document = new me.braydon.feather.data.Document<>(entity); // Create a document from the entity
-        collection.deleteOne(new Document(document.getIdKey(), document.getKey())); // Delete the entity
+        record("drop", true, () -> {
+            EntityMetadata.EntityField idField = getIdField(); // The field annotated with @Id
+            collection.deleteOne(new Document(idField.getKey(), idField.read(entity))); // Delete the entity
+            forget(entity);
+        });
+    }
+    
+    /**
+     * Drop the entities with the given ids
+     * using a single {@code deleteMany}.
+     *
+     * @param ids the entity ids to drop
+     * @see ID for id
+     * @see E for entity
+     */
+    @Override
+    public void dropAllById(@NonNull Collection<ID> ids) {
+        dropAllById("_id", ids);
+    }
+    
+    /**
+     * Drop the entities with the given ids
+     * using a single {@code deleteMany}.
+     *
+     * @param idKey the key of the id
+     * @param ids the entity ids to drop
+     * @see ID for id
+     * @see E for entity
+     */
+    public void dropAllById(@NonNull String idKey, @NonNull Collection<ID> ids) {
+        record("dropAllById", ids.size(), true, () -> {
+            if (ids.isEmpty()) { // Nothing to drop
+                return;
+            }
+            EntityMetadata.EntityField idField = getIdField(); // The field annotated with @Id
+            List<Object> keys = new ArrayList<>(ids.size()); // The stored form of the ids
+            for (ID id : ids) {
+                keys.add(idField.toStored(id));
+            }
+            collection.deleteMany(Filters.in(idKey, keys)); // Delete the entities
+        });
+    }
+    
+    /**
+     * Drop the given entities using a single {@code deleteMany}.
+     *
+     * @param entities the entities to drop
+     * @see E for entity
+     */
+    @Override
+    public void dropAll(@NonNull E... entities) {
+        record("dropAll", entities.length, true, () -> {
+            if (entities.length == 0) { // Nothing to drop
+                return;
+            }
+            EntityMetadata.EntityField idField = getIdField(); // The field annotated with @Id
+            List<Object> keys = new ArrayList<>(entities.length); // The ids of the entities
+            for (E entity : entities) {
+                keys.add(idField.read(entity));
+                forget(entity);
+            }
+            collection.deleteMany(Filters.in(idField.getKey(), keys)); // Delete the entities
+        });
+    }
+    
+    /**
+     * The {@link AsyncRepository} view of this repository.
+     */
+    private final class MongoAsyncRepository implements AsyncRepository<ID, E> {
+        /**
+         * Get the entity with the given id.
+         *
+         * @param id the entity id
+         * @return the future entity with the id, completed with null if none
+         * @see ID for id
+         * @see E for entity
+         */
+        @Override @NonNull
+        public CompletableFuture<E> find(@NonNull ID id) {
+            return CompletableFuture.supplyAsync(() -> MongoRepository.this.find(id), executor());
+        }
+        
+        /**
+         * Get all entities within this repository.
+         *
+         * @return the future entities
+         * @see E for entity
+         */
+        @Override @NonNull
+        public CompletableFuture<List<E>> findAll() {
+            return CompletableFuture.supplyAsync(MongoRepository.this::findAll, executor());
+        }
+        
+        /**
+         * Save the given entities.
+         *
+         * @param entities the entities to save
+         * @return the future completed once saved
+         * @see E for entity
+         */
+        @Override @NonNull
+        public CompletableFuture<Void> saveAll(@NonNull E... entities) {
+            return CompletableFuture.runAsync(() -> MongoRepository.this.saveAll(entities), executor());
+        }
+        
+        /**
+         * Get the amount of stored entities.
+         *
+         * @return the future amount of stored entities
+         * @see E for entity
+         */
+        @Override @NonNull
+        public CompletableFuture<Long> count() {
+            return CompletableFuture.supplyAsync(MongoRepository.this::count, executor());
+        }
+        
+        /**
+         * Drop the entity with the given id.
+         *
+         * @param id the entity id to drop
+         * @return the future completed once dropped
+         * @see ID for id
+         * @see E for entity
+         */
+        @Override @NonNull
+        public CompletableFuture<Void> dropById(@NonNull ID id) {
+            return CompletableFuture.runAsync(() -> MongoRepository.this.dropById(id), executor());
+        }
+        
+        /**
+         * Drop the given entity.
+         *
+         * @param entity the entity to drop
+         * @return the future completed once dropped
+         * @see E for entity
+         */
+        @Override @NonNull
+        public CompletableFuture<Void> drop(@NonNull E entity) {
+            return CompletableFuture.runAsync(() -> MongoRepository.this.drop(entity), executor());
+        }
+        
+        /**
+         * Get the executor to run operations on.
+         *
+         * @return the executor
+         * @throws IllegalStateException if not connected
+         */
+        @NonNull
+        private Executor executor() throws IllegalStateException {
+            Executor executor = getDatabase().getExecutor();
+            if (executor == null) { // Not connected
+                throw new IllegalStateException("Not connected");
+            }
+            return executor;
+        }
     }
 }
\ No newline at end of file
@@ -12,10 +12,86 @@ import java.lang.annotation.*;
 /**
  * Fields flagged with this annotation will be
  * treated as an indexed field within {@link MongoDB}.
+ * <p>
+ * Indexes are created once, when the repository
+ * for the entity is created. Fields that share the
+ * same {@link #name()} are combined into a single
+ * compound index, in declaration order.
+ * </p>
  *
  * @author Braydon
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.FIELD)
 @Documented @Inherited
-public @interface Index { }
\ No newline at end of file
+public @interface Index {
+    /**
+     * The type of this index.
+     *
+     * @return the index type
+     */
+    Type type() default Type.TEXT;
+    
+    /**
+     * The name of this index.
+     * <p>
+     * If empty, the driver will generate a name.
+     * Fields with the same name are combined
+     * into a compound index.
+     * </p>
+     *
+     * @return the index name
+     */
+    String name() default "";
+    
+    /**
+     * Whether the indexed values must be unique.
+     *
+     * @return whether the index is unique
+     */
+    boolean unique() default false;
+    
+    /**
+     * The amount of seconds after the indexed date
+     * at which the document will be expired.
+     * <p>
+     * If negative, the index will not expire documents.
+     * Only single field indexes may expire documents,
+     * the repository will fail to be created if this is
+     * set on a field sharing a compound index.
+     * </p>
+     *
+     * @return the seconds to expire after
+     */
+    long expireAfterSeconds() default -1L;
+    
+    /**
+     * The type of index.
+     */
+    enum Type {
+        /**
+         * An ascending index.
+         */
+        ASCENDING,
+        
+        /**
+         * A descending index.
+         */
+        DESCENDING,
+        
+        /**
+         * A hashed index.
+         */
+        HASHED,
+        
+        /**
+         * A text index.
+         * <p>
+         * A collection may only have a single
+         * text index, so all unnamed text fields
+         * are combined into one.
+         * </p>
+         */
+        TEXT
+    }
+}
\ No newline at end of file
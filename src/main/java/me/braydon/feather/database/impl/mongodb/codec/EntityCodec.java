@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database.impl.mongodb.codec;
+
+import com.google.gson.JsonElement;
+import lombok.NonNull;
+import me.braydon.feather.FeatherSettings;
+import me.braydon.feather.data.EntityMetadata;
+import me.braydon.feather.database.Repository;
+import me.braydon.feather.database.impl.mongodb.MongoDB;
+import me.braydon.feather.metrics.MetricsRecorder;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.BsonTypeClassMap;
+import org.bson.codecs.BsonTypeCodecMap;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+
+/**
+ * A {@link Codec} that reads and writes entities
+ * directly to and from BSON within {@link MongoDB},
+ * without building an intermediate document.
+ * <p>
+ * Serializable fields are written as native subdocuments
+ * when {@link FeatherSettings#isNativeMongoDocuments()}
+ * is enabled, both forms are always read.
+ * </p>
+ *
+ * @author Braydon
+ * @param <E> the entity type
+ */
+public final class EntityCodec<E> implements Codec<E> {
+    /**
+     * The metadata of the entity this codec handles.
+     */
+    @NonNull private final EntityMetadata<E> metadata;
+    
+    /**
+     * The registry to use for field values.
+     */
+    @NonNull private final CodecRegistry registry;
+    
+    /**
+     * The codecs to use when decoding field values, keyed by BSON type.
+     */
+    @NonNull private final BsonTypeCodecMap bsonTypeCodecMap;
+    
+    /**
+     * The repository to record the mapping metrics of.
+     */
+    @NonNull private final Repository<?, ?, ?> repository;
+    
+    public EntityCodec(@NonNull EntityMetadata<E> metadata, @NonNull CodecRegistry registry, @NonNull Repository<?, ?, ?> repository) {
+        this.metadata = metadata;
+        this.registry = registry;
+        this.repository = repository;
+        bsonTypeCodecMap = new BsonTypeCodecMap(new BsonTypeClassMap(), registry);
+    }
+    
+    /**
+     * Encode the given entity to BSON.
+     *
+     * @param writer the writer to write to
+     * @param entity the entity to encode
+     * @param encoderContext the encoder context
+     */
+    @Override @SuppressWarnings({ "unchecked", "rawtypes" })
+    public void encode(@NonNull BsonWriter writer, @NonNull E entity, @NonNull EncoderContext encoderContext) {
+        MetricsRecorder metrics = repository.getMetrics();
+        boolean recording = metrics != MetricsRecorder.NOOP;
+        long start = recording ? System.nanoTime() : 0L; // Only time the mapping if recording
+        int position = recording ? position(writer) : -1;
+        writer.writeStartDocument();
+        for (EntityMetadata.EntityField field : metadata.getFields()) {
+            writer.writeName(field.getKey());
+            if (field.isSerializable() && FeatherSettings.isNativeMongoDocuments()) {
+                JsonElement tree = FeatherSettings.getGson().toJsonTree(field.get(entity));
+                
+                // Only objects and arrays are stored as subdocuments, so
+                // scalar values can still be told apart from legacy strings
+                if (tree.isJsonObject() || tree.isJsonArray()) {
+                    JsonBsonConverter.write(writer, tree);
+                    continue;
+                }
+            }
+            Object value = field.read(entity); // The stored form of the field value
+            if (value == null) { // Null value, no codec needed
+                writer.writeNull();
+                continue;
+            }
+            Codec codec = registry.get(value.getClass()); // The codec for the field value
+            encoderContext.encodeWithChildContext(codec, writer, value);
+        }
+        writer.writeEndDocument();
+        if (recording) {
+            recordMapping(metrics, "write", start, position, position(writer));
+        }
+    }
+    
+    /**
+     * Decode an entity from BSON.
+     *
+     * @param reader the reader to read from
+     * @param decoderContext the decoder context
+     * @return the decoded entity
+     */
+    @Override
+    public E decode(@NonNull BsonReader reader, @NonNull DecoderContext decoderContext) {
+        MetricsRecorder metrics = repository.getMetrics();
+        boolean recording = metrics != MetricsRecorder.NOOP;
+        long start = recording ? System.nanoTime() : 0L; // Only time the mapping if recording
+        int position = recording ? position(reader) : -1;
+        E entity = metadata.newInstance(); // Create the entity
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            EntityMetadata.EntityField field = metadata.getField(reader.readName()); // The field for this key
+            if (field == null) { // Not a field within the entity, skip it
+                reader.skipValue();
+                continue;
+            }
+            BsonType type = reader.getCurrentBsonType(); // The type of the value
+            if (field.isSerializable() && (type == BsonType.DOCUMENT || type == BsonType.ARRAY)) { // Stored as a subdocument
+                field.set(entity, FeatherSettings.getGson().fromJson(JsonBsonConverter.read(reader), field.getGenericType()));
+                continue;
+            }
+            Object value = null; // The value of the field
+            if (type == BsonType.NULL) {
+                reader.readNull();
+            } else {
+                value = decoderContext.decodeWithChildContext(bsonTypeCodecMap.get(type), reader);
+            }
+            field.write(entity, value); // Set the value of the field
+        }
+        reader.readEndDocument();
+        if (recording) {
+            recordMapping(metrics, "read", start, position, position(reader));
+        }
+        return entity;
+    }
+    
+    /**
+     * Get the class of the entity this codec handles.
+     *
+     * @return the entity class
+     */
+    @Override
+    public Class<E> getEncoderClass() {
+        return metadata.getEntityClass();
+    }
+    
+    /**
+     * Record the time taken to map an entity and
+     * the amount of bytes it was mapped from or to.
+     *
+     * @param metrics the recorder to record to
+     * @param direction the mapping direction, "read" or "write"
+     * @param start the time the mapping started, in nanoseconds
+     * @param from the position before mapping, -1 if unknown
+     * @param to the position after mapping, -1 if unknown
+     */
+    private void recordMapping(@NonNull MetricsRecorder metrics, @NonNull String direction, long start, int from, int to) {
+        String tag = repository.getMetricsTag();
+        metrics.recordMapping(tag, direction, System.nanoTime() - start);
+        if (from >= 0 && to >= from) { // We know how many bytes were mapped
+            metrics.recordBytes(tag, direction, to - from);
+        }
+    }
+    
+    /**
+     * Get the position of the given writer
+     * within its output, if it is binary.
+     *
+     * @param writer the writer
+     * @return the position, -1 if unknown
+     */
+    private static int position(@NonNull BsonWriter writer) {
+        return writer instanceof BsonBinaryWriter ? ((BsonBinaryWriter) writer).getBsonOutput().getPosition() : -1;
+    }
+    
+    /**
+     * Get the position of the given reader
+     * within its input, if it is binary.
+     *
+     * @param reader the reader
+     * @return the position, -1 if unknown
+     */
+    private static int position(@NonNull BsonReader reader) {
+        return reader instanceof BsonBinaryReader ? ((BsonBinaryReader) reader).getBsonInput().getPosition() : -1;
+    }
+}
\ No newline at end of file
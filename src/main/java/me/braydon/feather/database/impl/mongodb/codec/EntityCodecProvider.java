@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database.impl.mongodb.codec;
+
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import me.braydon.feather.data.EntityMetadata;
+import me.braydon.feather.database.Repository;
+import org.bson.codecs.Codec;
+import org.bson.codecs.configuration.CodecProvider;
+import org.bson.codecs.configuration.CodecRegistry;
+
+/**
+ * A {@link CodecProvider} that provides an
+ * {@link EntityCodec} for the entity of a repository.
+ *
+ * @author Braydon
+ */
+@AllArgsConstructor
+public final class EntityCodecProvider implements CodecProvider {
+    /**
+     * The metadata of the entity to provide a codec for.
+     */
+    @NonNull private final EntityMetadata<?> metadata;
+    
+    /**
+     * The repository to record the mapping metrics of.
+     */
+    @NonNull private final Repository<?, ?, ?> repository;
+    
+    /**
+     * Get a codec for the given class.
+     *
+     * @param clazz the class to get the codec for
+     * @param registry the registry to use for resolving dependent codecs
+     * @param <T> the type of the class
+     * @return the codec, null if the class is not our entity
+     */
+    @Override @SuppressWarnings("unchecked")
+    public <T> Codec<T> get(Class<T> clazz, CodecRegistry registry) {
+        if (clazz != metadata.getEntityClass()) { // Not our entity
+            return null;
+        }
+        return new EntityCodec<>((EntityMetadata<T>) metadata, registry, repository);
+    }
+}
\ No newline at end of file
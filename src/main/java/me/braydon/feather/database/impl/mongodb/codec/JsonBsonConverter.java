@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database.impl.mongodb.codec;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.BsonWriter;
+import org.bson.types.Decimal128;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Converts between Gson trees and BSON values, used
+ * to store serializable fields as native subdocuments.
+ *
+ * @author Braydon
+ */
+@UtilityClass
+public final class JsonBsonConverter {
+    /**
+     * Convert the given tree to a BSON value.
+     *
+     * @param element the tree to convert
+     * @return the BSON value
+     */
+    @NonNull
+    public static BsonValue toBson(JsonElement element) {
+        BsonDocument document = new BsonDocument();
+        BsonDocumentWriter writer = new BsonDocumentWriter(document);
+        writer.writeStartDocument();
+        writer.writeName("value");
+        write(writer, element);
+        writer.writeEndDocument();
+        return document.get("value");
+    }
+    
+    /**
+     * Write the given tree as a BSON value.
+     *
+     * @param writer the writer to write to
+     * @param element the tree to write
+     */
+    public static void write(@NonNull BsonWriter writer, JsonElement element) {
+        if (element == null || element.isJsonNull()) {
+            writer.writeNull();
+        } else if (element.isJsonObject()) {
+            writer.writeStartDocument();
+            for (Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet()) {
+                writer.writeName(entry.getKey());
+                write(writer, entry.getValue());
+            }
+            writer.writeEndDocument();
+        } else if (element.isJsonArray()) {
+            writer.writeStartArray();
+            for (JsonElement child : element.getAsJsonArray()) {
+                write(writer, child);
+            }
+            writer.writeEndArray();
+        } else {
+            JsonPrimitive primitive = element.getAsJsonPrimitive();
+            if (primitive.isBoolean()) {
+                writer.writeBoolean(primitive.getAsBoolean());
+            } else if (primitive.isNumber()) {
+                writeNumber(writer, primitive.getAsString());
+            } else {
+                writer.writeString(primitive.getAsString());
+            }
+        }
+    }
+    
+    /**
+     * Read a BSON value as a tree.
+     * <p>
+     * BSON types without a JSON equivalent
+     * are skipped and read as null.
+     * </p>
+     *
+     * @param reader the reader to read from
+     * @return the tree
+     */
+    @NonNull
+    public static JsonElement read(@NonNull BsonReader reader) {
+        switch (reader.getCurrentBsonType()) {
+            case DOCUMENT:
+                JsonObject object = new JsonObject();
+                reader.readStartDocument();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    String key = reader.readName();
+                    object.add(key, read(reader));
+                }
+                reader.readEndDocument();
+                return object;
+            case ARRAY:
+                JsonArray array = new JsonArray();
+                reader.readStartArray();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    array.add(read(reader));
+                }
+                reader.readEndArray();
+                return array;
+            case BOOLEAN:
+                return new JsonPrimitive(reader.readBoolean());
+            case INT32:
+                return new JsonPrimitive(reader.readInt32());
+            case INT64:
+                return new JsonPrimitive(reader.readInt64());
+            case DOUBLE:
+                return new JsonPrimitive(reader.readDouble());
+            case DECIMAL128:
+                return new JsonPrimitive(reader.readDecimal128().bigDecimalValue());
+            case STRING:
+                return new JsonPrimitive(reader.readString());
+            default:
+                reader.skipValue();
+                return JsonNull.INSTANCE;
+        }
+    }
+    
+    /**
+     * Write the given number, using the
+     * smallest BSON type that keeps it exact.
+     *
+     * @param writer the writer to write to
+     * @param number the number to write
+     */
+    private static void writeNumber(@NonNull BsonWriter writer, @NonNull String number) {
+        try {
+            long value = Long.parseLong(number);
+            if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                writer.writeInt32((int) value);
+            } else {
+                writer.writeInt64(value);
+            }
+            return;
+        } catch (NumberFormatException ignored) {
+            // Not an integer
+        }
+        double value = Double.parseDouble(number);
+        if (Double.toString(value).equals(number)) { // The double is exact
+            writer.writeDouble(value);
+        } else { // Keep the exact value
+            writer.writeDecimal128(new Decimal128(new BigDecimal(number)));
+        }
+    }
+}
\ No newline at end of file
@@ -5,11 +5,25 @@
  */
 package me.braydon.feather.database.impl.redis;
 
+import io.lettuce.core.ClientOptions;
 import io.lettuce.core.RedisClient;
 import io.lettuce.core.RedisURI;
 import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import io.lettuce.core.support.ConnectionPoolSupport;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
+import me.braydon.feather.database.HealthMonitor;
 import me.braydon.feather.database.IDatabase;
+import me.braydon.feather.database.resilience.CircuitBreaker;
+import me.braydon.feather.database.impl.redis.codec.CompressingStringCodec;
+import me.braydon.feather.metrics.MetricsRecorder;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * The {@link IDatabase} implementation for Redis.
@@ -30,6 +44,75 @@ public class Redis implements IDatabase<StatefulRedisConnection<String, String>,
      */
     private StatefulRedisConnection<String, String> connection;
     
+    /**
+     * The configuration of the connection pool.
+     * <p>
+     * Modify this before connecting to size the pool.
+     * </p>
+     *
+     * @see #withConnection(Function) for borrowing a connection
+     */
+    @Getter @NonNull private final GenericObjectPoolConfig<StatefulRedisConnection<String, String>> poolConfig = new GenericObjectPoolConfig<>();
+    
+    /**
+     * The pool of dedicated connections, used for
+     * operations that can't share the multiplexed
+     * bootstrap connection, such as transactions.
+     * <p>
+     * The pool also exposes its metrics, such as the
+     * amount of active and idle connections and the
+     * mean borrow wait time.
+     * </p>
+     */
+    @Getter private GenericObjectPool<StatefulRedisConnection<String, String>> pool;
+    
+    /**
+     * The options of the client, applied when connecting.
+     * <p>
+     * By default, dropped connections are re-established
+     * in the background with an exponential backoff, and
+     * commands issued while disconnected are rejected
+     * right away rather than queued until they time out.
+     * </p>
+     */
+    @Getter @Setter @NonNull private ClientOptions clientOptions = ClientOptions.builder()
+                                                                       .autoReconnect(true)
+                                                                       .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                                                                       .build();
+    
+    /**
+     * The codec used by every connection.
+     * <p>
+     * Values are stored as UTF-8 strings, set a compression
+     * threshold on the codec to have large values, such as
+     * big serialized fields, compressed transparently.
+     * </p>
+     *
+     * @see CompressingStringCodec#setCompressionThreshold(int) for enabling compression
+     */
+    @Getter @NonNull private final CompressingStringCodec codec = new CompressingStringCodec();
+    
+    /**
+     * The recorder for the metrics of this database.
+     *
+     * @see MetricsRecorder#NOOP for the default
+     */
+    @Getter @Setter @NonNull private volatile MetricsRecorder metrics = MetricsRecorder.NOOP;
+    
+    /**
+     * The monitor pinging this database in the background.
+     * <p>
+     * Probes are sent with the async API on the bootstrap
+     * connection, so they don't hold up other commands.
+     * </p>
+     */
+    @Getter @NonNull private final HealthMonitor healthMonitor = new HealthMonitor(this, this::ping);
+    
+    /**
+     * The circuit breaker guarding the repositories of this database.
+     */
+    @Getter @NonNull private final CircuitBreaker circuitBreaker = new CircuitBreaker("Redis");
+    
     /**
      * Get the name of this database.
      *
@@ -55,6 +138,9 @@ public class Redis implements IDatabase<StatefulRedisConnection<String, String>,
         if (isConnected()) { // Already connected
             throw new IllegalStateException("Already connected");
         }
+        if (pool != null) { // We have a connection pool, close it first
+            pool.close();
+        }
         if (client != null) { // We have a client, close it first
             client.close();
         }
@@ -62,13 +148,17 @@ public class Redis implements IDatabase<StatefulRedisConnection<String, String>,
             connection.close();
         }
         client = RedisClient.create(credentials); // Create a new client
-        connection = client.connect(); // Connect to the Redis server
+        client.setOptions(clientOptions);
+        connection = client.connect(codec); // Connect to the Redis server
+        pool = ConnectionPoolSupport.createGenericObjectPool(() -> client.connect(codec), poolConfig, false); // Create the dedicated connection pool
+        healthMonitor.start(); // Start pinging the server
     }
     
     /**
      * Check if this database is connected.
      *
      * @return the database connection state
+     * @see HealthMonitor#isHealthy() for whether the server is responding
      */
     @Override
     public boolean isConnected() {
@@ -76,13 +166,30 @@ public class Redis implements IDatabase<StatefulRedisConnection<String, String>,
     }
     
     /**
-     * Get the latency to this database.
+     * Get the latency to this database, as
+     * measured by the last health probe.
      *
-     * @return the latency, -1 if not connected
+     * @return the latency in milliseconds, -1 if not connected or not probed yet
      */
     @Override
     public long getLatency() {
-        return 0;
+        HealthMonitor.LatencyStats stats = healthMonitor.getStats();
+        if (!isConnected() || stats.getSamples() == 0) { // Not connected or not probed yet
+            return -1L;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(stats.getLast());
+    }
+    
+    /**
+     * Ping the server, waiting on the
+     * reply for up to the probe timeout.
+     *
+     * @return the reply
+     * @throws Exception if the ping failed or timed out
+     */
+    @NonNull
+    private String ping() throws Exception {
+        return connection.async().ping().get(healthMonitor.getTimeout(), TimeUnit.MILLISECONDS);
     }
     
     /**
@@ -97,6 +204,72 @@ public class Redis implements IDatabase<StatefulRedisConnection<String, String>,
         return connection;
     }
     
+    /**
+     * Run the given function with a dedicated connection
+     * borrowed from the pool, returning it afterwards.
+     * <p>
+     * If the function fails, the connection may have been
+     * left mid-transaction or with commands that were never
+     * flushed, so it's closed rather than returned.
+     * </p>
+     * <p>
+     * Plain commands should use the multiplexed
+     * {@link #getBootstrap()} connection, this is for
+     * operations that change the connection state,
+     * such as {@code MULTI}/{@code EXEC} or blocking
+     * commands.
+     * </p>
+     *
+     * @param function the function to run
+     * @param <T> the type of result
+     * @return the function result
+     * @throws IllegalStateException if not connected
+     */
+    public <T> T withConnection(@NonNull Function<StatefulRedisConnection<String, String>, T> function) throws IllegalStateException {
+        if (!isConnected()) { // Not connected
+            throw new IllegalStateException("Not connected");
+        }
+        StatefulRedisConnection<String, String> borrowed;
+        try {
+            borrowed = pool.borrowObject();
+        } catch (Exception ex) {
+            throw new IllegalStateException("Unable to borrow a connection", ex);
+        }
+        T result;
+        try {
+            result = function.apply(borrowed);
+        } catch (RuntimeException | Error ex) {
+            try {
+                pool.invalidateObject(borrowed); // Don't hand a dirty connection to the next borrower
+            } catch (Exception invalidateEx) {
+                ex.addSuppressed(invalidateEx);
+            }
+            throw ex;
+        }
+        pool.returnObject(borrowed);
+        return result;
+    }
+    
+    /**
+     * Open a new, dedicated pub/sub connection.
+     * <p>
+     * Subscribing puts a connection into pub/sub mode,
+     * so this is kept separate from the bootstrap
+     * connection. The caller is responsible for
+     * closing the returned connection.
+     * </p>
+     *
+     * @return the pub/sub connection
+     * @throws IllegalStateException if not connected
+     */
+    @NonNull
+    public StatefulRedisPubSubConnection<String, String> connectPubSub() throws IllegalStateException {
+        if (!isConnected()) { // Not connected
+            throw new IllegalStateException("Not connected");
+        }
+        return client.connectPubSub(codec);
+    }
+    
     /**
      * Create a new repository using this database.
      *
@@ -138,12 +311,17 @@ public class Redis implements IDatabase<StatefulRedisConnection<String, String>,
      */
     @Override
     public void close() {
+        healthMonitor.stop();
+        if (pool != null) {
+            pool.close();
+        }
         if (client != null) {
             client.close();
         }
         if (connection != null) {
             connection.close();
         }
+        pool = null;
         client = null;
         connection = null;
     }
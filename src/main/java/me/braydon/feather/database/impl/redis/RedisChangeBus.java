@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database.impl.redis;
+
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import me.braydon.feather.database.ChangeBus;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * A {@link ChangeBus} that uses {@link Redis} pub/sub.
+ * <p>
+ * Each channel is a Redis channel prefixed with
+ * {@link #CHANNEL_PREFIX}. Messages hold the id of the
+ * publishing node on the first line, followed by one
+ * changed entity id per line.
+ * </p>
+ * <p>
+ * When the pub/sub connection is re-established, the
+ * channels are subscribed to again and the missed
+ * callbacks of their listeners are run, as anything
+ * published in between never reached us.
+ * </p>
+ *
+ * @author Braydon
+ */
+public class RedisChangeBus implements ChangeBus, Closeable {
+    /**
+     * The prefix of the Redis channels used by this bus.
+     */
+    public static final String CHANNEL_PREFIX = "feather:changes:";
+    
+    /**
+     * The database to publish with.
+     */
+    @NonNull private final Redis database;
+    
+    /**
+     * The id of this node, used to ignore our own messages.
+     */
+    @NonNull private final String nodeId = UUID.randomUUID().toString();
+    
+    /**
+     * The dedicated connection to receive messages on.
+     */
+    @NonNull private final StatefulRedisPubSubConnection<String, String> connection;
+    
+    /**
+     * The registered listeners, keyed by Redis channel.
+     */
+    @NonNull private final Map<String, List<Listener>> listeners = new ConcurrentHashMap<>();
+    
+    /**
+     * The Redis channels the server confirmed our subscription to.
+     * <p>
+     * A confirmation for a channel already in here
+     * means the connection was re-established.
+     * </p>
+     */
+    @NonNull private final Set<String> subscribed = ConcurrentHashMap.newKeySet();
+    
+    public RedisChangeBus(@NonNull Redis database) {
+        this.database = database;
+        connection = database.connectPubSub();
+        connection.addListener(new RedisPubSubAdapter<String, String>() {
+            @Override
+            public void message(String channel, String message) {
+                handle(channel, message);
+            }
+            
+            @Override
+            public void subscribed(String channel, long count) {
+                if (!subscribed.add(channel)) { // Subscribed again after reconnecting
+                    missed(channel);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Notify other nodes that the entities
+     * with the given ids have changed.
+     *
+     * @param channel the channel to publish on
+     * @param ids the ids of the changed entities
+     */
+    @Override
+    public void publish(@NonNull String channel, @NonNull Collection<String> ids) {
+        if (ids.isEmpty()) { // Nothing changed
+            return;
+        }
+        StringBuilder message = new StringBuilder(nodeId);
+        for (String id : ids) {
+            message.append('\n').append(id);
+        }
+        database.getBootstrap().async().publish(CHANNEL_PREFIX + channel, message.toString()); // Fire and forget
+    }
+    
+    /**
+     * Listen for changes published by other nodes.
+     *
+     * @param channel the channel to listen on
+     * @param listener the listener to call with the ids of the changed entities
+     * @param missed the callback to run when changes may have been missed
+     * @return the subscription, close it to stop listening
+     */
+    @Override @NonNull
+    public synchronized Subscription subscribe(@NonNull String channel, @NonNull Consumer<Collection<String>> listener, @NonNull Runnable missed) {
+        String redisChannel = CHANNEL_PREFIX + channel;
+        Listener registered = new Listener(listener, missed);
+        List<Listener> channelListeners = listeners.get(redisChannel);
+        if (channelListeners == null) { // First listener on this channel, subscribe to it
+            channelListeners = new CopyOnWriteArrayList<>();
+            listeners.put(redisChannel, channelListeners);
+            connection.sync().subscribe(redisChannel);
+        }
+        channelListeners.add(registered);
+        return () -> unsubscribe(redisChannel, registered);
+    }
+    
+    /**
+     * Remove the given listener, unsubscribing
+     * from the channel if it was the last one.
+     *
+     * @param redisChannel the Redis channel
+     * @param listener the listener to remove
+     */
+    private synchronized void unsubscribe(@NonNull String redisChannel, @NonNull Listener listener) {
+        List<Listener> channelListeners = listeners.get(redisChannel);
+        if (channelListeners == null || !channelListeners.remove(listener) || !channelListeners.isEmpty()) { // Already removed, or still in use
+            return;
+        }
+        listeners.remove(redisChannel);
+        subscribed.remove(redisChannel);
+        if (connection.isOpen()) {
+            connection.sync().unsubscribe(redisChannel);
+        }
+    }
+    
+    /**
+     * Run the missed callbacks of the listeners on the given channel.
+     *
+     * @param redisChannel the Redis channel
+     */
+    private void missed(@NonNull String redisChannel) {
+        List<Listener> channelListeners = listeners.get(redisChannel);
+        if (channelListeners == null) { // Not a channel we listen on
+            return;
+        }
+        for (Listener listener : channelListeners) {
+            listener.missed.run();
+        }
+    }
+    
+    /**
+     * Handle a message received on the given channel.
+     *
+     * @param channel the Redis channel
+     * @param message the message
+     */
+    private void handle(@NonNull String channel, @NonNull String message) {
+        List<Listener> channelListeners = listeners.get(channel);
+        if (channelListeners == null) { // Not a channel we listen on
+            return;
+        }
+        List<String> lines = Arrays.asList(message.split("\n"));
+        if (lines.isEmpty() || lines.get(0).equals(nodeId)) { // Our own message, we already know about it
+            return;
+        }
+        List<String> ids = lines.subList(1, lines.size());
+        for (Listener listener : channelListeners) {
+            listener.listener.accept(ids);
+        }
+    }
+    
+    /**
+     * Closes this stream and releases any system resources associated
+     * with it. If the stream is already closed then invoking this
+     * method has no effect.
+     */
+    @Override
+    public synchronized void close() {
+        listeners.clear();
+        subscribed.clear();
+        connection.close();
+    }
+    
+    /**
+     * A listener registered on a channel.
+     */
+    @AllArgsConstructor
+    private static final class Listener {
+        /**
+         * The listener to call with the ids of the changed entities.
+         */
+        @NonNull private final Consumer<Collection<String>> listener;
+        
+        /**
+         * The callback to run when changes may have been missed.
+         */
+        @NonNull private final Runnable missed;
+    }
+}
\ No newline at end of file
@@ -5,17 +5,65 @@
  */
 package me.braydon.feather.database.impl.redis;
 
+import com.google.common.base.Utf8;
+import com.google.common.collect.Iterators;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.Range;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
 import io.lettuce.core.api.sync.RedisCommands;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
+import me.braydon.feather.data.ChangeTracker;
 import me.braydon.feather.data.Document;
+import me.braydon.feather.data.EntityMetadata;
+import me.braydon.feather.database.AsyncRepository;
 import me.braydon.feather.database.Repository;
+import me.braydon.feather.database.impl.redis.annotation.TimeToLive;
+import me.braydon.feather.database.query.Filter;
+import me.braydon.feather.database.query.Query;
+import me.braydon.feather.metrics.MetricsRecorder;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The {@link Redis} {@link Repository} implementation.
+ * <p>
+ * Alongside the entity hashes, the ids of all saved
+ * entities are kept in an index sorted set, scored by
+ * the time at which the entity expires. This allows the
+ * live entities to be counted with a single {@code ZCOUNT}.
+ * </p>
  *
  * @author Braydon
  * @param <ID> the identifier for type for entities
@@ -27,12 +75,59 @@ public class RedisRepository<ID, E> extends Repository<Redis, ID, E> {
      */
     @NonNull private final String keyPrefix;
     
+    /**
+     * The index score of entities that never expire.
+     */
+    private static final double NO_EXPIRY = Long.MAX_VALUE;
+    
+    /**
+     * The key of the sorted set holding the ids of the entities in this repository.
+     */
+    @NonNull private final String indexKey;
+    
+    /**
+     * The key marking that our index has been
+     * built from the entity keys at least once.
+     */
+    @NonNull private final String indexedKey;
+    
+    /**
+     * Whether we've made sure our index has been built.
+     */
+    private volatile boolean indexed;
+    
+    /**
+     * The time to live of saved entities in
+     * milliseconds, 0 or less if they never expire.
+     *
+     * @see TimeToLive for declaring the time to live on the entity
+     */
+    @Getter private volatile long timeToLive;
+    
+    /**
+     * How {@link #saveAll(Object[])} writes multiple entities.
+     */
+    @Getter @Setter @NonNull private volatile WriteMode writeMode = WriteMode.PIPELINED;
+    
+    /**
+     * The non-blocking view of this repository.
+     */
+    @NonNull private final AsyncRepository<ID, E> async;
+    
     public RedisRepository(@NonNull Redis database, @NonNull Class<? extends E> entityClass, @NonNull String keyPrefix) {
         super(database, entityClass);
         this.keyPrefix = keyPrefix.trim();
         if (this.keyPrefix.isEmpty()) { // Missing a key prefix
             throw new IllegalArgumentException("Missing key prefix");
         }
+        indexKey = this.keyPrefix + "#ids";
+        indexedKey = this.keyPrefix + "#indexed";
+        setMetricsTag(this.keyPrefix);
+        TimeToLive timeToLive = entityClass.getAnnotation(TimeToLive.class);
+        if (timeToLive != null) { // The entity declares a time to live
+            this.timeToLive = timeToLive.unit().toMillis(timeToLive.value());
+        }
+        async = new RedisAsyncRepository();
     }
     
     /**
@@ -45,7 +140,39 @@ public class RedisRepository<ID, E> extends Repository<Redis, ID, E> {
      */
     @Override
     public E find(@NonNull ID id) {
-        return newEntity(getDatabase().getBootstrap().sync().hgetall(keyPrefix + ":" + id));
+        return record("find", true, () -> toEntity(getDatabase().getBootstrap().sync().hgetall(keyPrefix + ":" + id)));
+    }
+    
+    /**
+     * Get the entities with the given ids
+     * using pipelined {@code HGETALL}'s.
+     *
+     * @param ids the entity ids
+     * @return the found entities keyed by their id, ids with no entity are absent
+     * @see ID for id
+     * @see E for entity
+     */
+    @Override @NonNull
+    public Map<ID, E> findAllById(@NonNull Collection<ID> ids) {
+        return record("findAllById", true, () -> {
+            if (ids.isEmpty()) { // Nothing to find
+                return Collections.emptyMap();
+            }
+            List<ID> idList = new ArrayList<>(ids);
+            List<String> keys = new ArrayList<>(idList.size()); // The keys of the entities
+            for (ID id : idList) {
+                keys.add(keyPrefix + ":" + id);
+            }
+            List<Map<String, String>> results = hgetallAll(keys);
+            Map<ID, E> entities = new HashMap<>(); // The entities to return
+            for (int i = 0; i < results.size(); i++) {
+                Map<String, String> mappedData = results.get(i);
+                if (mappedData != null && !mappedData.isEmpty()) { // The entity exists
+                    entities.put(idList.get(i), toEntity(mappedData));
+                }
+            }
+            return Collections.unmodifiableMap(entities);
+        });
     }
     
     /**
@@ -56,45 +183,652 @@ public class RedisRepository<ID, E> extends Repository<Redis, ID, E> {
      */
     @Override
     public List<E> findAll() {
-        RedisCommands<String, String> commands = getDatabase().getBootstrap().sync(); // The sync command executor
-        List<E> entities = new ArrayList<>(); // The entities to return
-        for (String key : commands.keys(keyPrefix + ":*")) {
-            entities.add(newEntity(commands.hgetall(key)));
-        }
-        return Collections.unmodifiableList(entities);
+        return record("findAll", true, () -> {
+            Set<String> seenKeys = new HashSet<>(); // SCAN may return a key more than once
+            
+            // Load the next batch of hashes once the previous one has been handed out, so with
+            // parallel mapping, the next batch is fetched while the last one is being mapped
+            Iterator<Map<String, String>> rows = Iterators.concat(Iterators.transform(scanKeys(), batch -> {
+                List<String> keys = new ArrayList<>(); // The keys we haven't loaded yet
+                for (String key : batch) {
+                    if (seenKeys.add(key)) {
+                        keys.add(key);
+                    }
+                }
+                return hgetallAll(keys).iterator();
+            }));
+            // Skip entities that were dropped after being scanned
+            return Collections.unmodifiableList(mapAll(rows, mappedData -> mappedData == null || mappedData.isEmpty() ? null : toEntity(mappedData)));
+        });
+    }
+    
+    /**
+     * Get the entities matching the given query.
+     * <p>
+     * Redis has no way to filter hashes server-side, so
+     * keys are scanned in batches and only the fields the
+     * query needs are fetched with pipelined {@code HMGET}'s.
+     * Filters are then evaluated on the raw values and only
+     * the matching entities are mapped. Without a sort order,
+     * scanning stops as soon as enough entities are found.
+     * </p>
+     *
+     * @param query the query to run
+     * @return the matching entities
+     * @see Query for query
+     * @see E for entity
+     */
+    @Override @NonNull
+    public List<E> findWhere(@NonNull Query query) {
+        return record("findWhere", true, () -> {
+            Set<String> projection = query.getProjection();
+            String[] fields = null; // The hash fields to fetch, null for all
+            if (!projection.isEmpty()) {
+                Set<String> neededFields = new LinkedHashSet<>(projection);
+                neededFields.add(getIdField().getKey());
+                for (Filter filter : query.getFilters()) {
+                    neededFields.add(filter.getKey());
+                }
+                neededFields.addAll(query.getSorts().keySet());
+                fields = neededFields.toArray(new String[0]);
+            }
+            boolean sorted = !query.getSorts().isEmpty();
+            long wanted = query.getLimit() == 0 ? Long.MAX_VALUE : (long) query.getSkip() + query.getLimit(); // The matches needed
+            
+            // Collect the raw data of the matching entities
+            List<Map<String, String>> matches = new ArrayList<>();
+            Set<String> seenKeys = new HashSet<>(); // SCAN may return a key more than once
+            Iterator<List<String>> batches = scanKeys();
+            while (batches.hasNext() && (sorted || matches.size() < wanted)) {
+                List<String> keys = new ArrayList<>(); // The keys we haven't fetched yet
+                for (String key : batches.next()) {
+                    if (seenKeys.add(key)) {
+                        keys.add(key);
+                    }
+                }
+                for (Map<String, String> mappedData : fields == null ? hgetallAll(keys) : hmgetAll(keys, fields)) {
+                    if (mappedData != null && !mappedData.isEmpty() && matches(query, mappedData)) {
+                        matches.add(mappedData);
+                    }
+                }
+            }
+            if (sorted) { // Sort the matches
+                matches.sort((left, right) -> {
+                    for (Map.Entry<String, Boolean> entry : query.getSorts().entrySet()) {
+                        int comparison = Filter.compare(left.get(entry.getKey()), right.get(entry.getKey()));
+                        if (comparison != 0) {
+                            return entry.getValue() ? comparison : -comparison;
+                        }
+                    }
+                    return 0;
+                });
+            }
+            
+            // Map the requested page of matches into entities
+            int from = Math.min(query.getSkip(), matches.size());
+            int to = (int) Math.min(matches.size(), wanted);
+            List<E> entities = new ArrayList<>(Math.max(0, to - from)); // The entities to return
+            for (Map<String, String> mappedData : matches.subList(from, to)) {
+                if (!projection.isEmpty()) { // Drop the fields that were only fetched to filter or sort on
+                    mappedData.keySet().removeIf(key -> !projection.contains(key) && !key.equals(getIdField().getKey()));
+                }
+                entities.add(toEntity(mappedData));
+            }
+            return Collections.unmodifiableList(entities);
+        });
+    }
+    
+    /**
+     * Stream all entities within this repository.
+     * <p>
+     * Keys are iterated lazily with {@code SCAN}, asking for
+     * {@link #getBatchSize()} keys per round-trip, and each
+     * batch of entities is loaded with pipelined {@code HGETALL}'s
+     * as the stream reaches it. As with {@code SCAN} itself, an
+     * entity that is modified while the stream is being consumed
+     * may be returned twice.
+     * </p>
+     *
+     * @return the entity stream
+     * @see E for entity
+     */
+    @Override @NonNull
+    public Stream<E> stream() {
+        Iterator<List<String>> batches = scanKeys();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                   .flatMap(keys -> loadAll(keys).stream());
     }
     
     /**
      * Save the given entities.
+     * <p>
+     * How the entities are written depends
+     * on the {@link #getWriteMode()}.
+     * </p>
      *
      * @param entities the entities to save
      * @see E for entity
+     * @see WriteMode for write modes
      */
     @Override
     public void saveAll(@NonNull E... entities) {
-        boolean multi = entities.length > 1; // Should we run multiple commands?
-        RedisCommands<String, String> commands = getDatabase().getBootstrap().sync(); // The sync command executor
-        if (multi) { // Prepare for setting the entities
+        record("saveAll", entities.length, !isChangeTracking(), () -> {
+            if (entities.length <= 1) { // A single entity doesn't need a pipeline or transaction
+                StatefulRedisConnection<String, String> connection = getDatabase().getBootstrap();
+                List<PendingSave> saves = prepareSaves(entities, 0, entities.length);
+                List<RedisFuture<?>> futures = new ArrayList<>();
+                for (PendingSave save : saves) {
+                    queueSave(connection.async(), save, futures);
+                }
+                await(connection, futures);
+            } else if (writeMode == WriteMode.TRANSACTIONAL) {
+                saveAllTransactional(entities);
+            } else {
+                saveAllPipelined(entities);
+            }
+            for (E entity : entities) { // Saved, take new snapshots
+                track(entity);
+            }
+        });
+    }
+    
+    /**
+     * Save the given entities in a single {@code MULTI}/{@code EXEC}.
+     * <p>
+     * The transaction is run on a dedicated connection, as it
+     * would otherwise interleave with other callers on the
+     * shared one. Every entity is mapped before the transaction
+     * is started, so that a failed mapping writes nothing.
+     * </p>
+     *
+     * @param entities the entities to save
+     * @see E for entity
+     */
+    private void saveAllTransactional(@NonNull E[] entities) {
+        List<PendingSave> saves = prepareSaves(entities, 0, entities.length);
+        getDatabase().withConnection(connection -> {
+            RedisAsyncCommands<String, String> commands = connection.async(); // The async command executor
             commands.multi();
+            for (PendingSave save : saves) { // Set our entities
+                queueSave(commands, save, new ArrayList<>());
+            }
+            await(connection, Collections.singletonList(commands.exec()));
+            return null;
+        });
+    }
+    
+    /**
+     * Save the given entities with a pipeline.
+     * <p>
+     * Auto-flushing is disabled on a dedicated connection,
+     * the commands for up to {@link #getBatchSize()} entities
+     * are queued and then flushed to the server at once, and
+     * the replies are awaited before the next batch is queued.
+     * The entities of a batch are mapped before any of its
+     * commands are queued, so a failed mapping never leaves
+     * unflushed commands behind on the connection.
+     * </p>
+     *
+     * @param entities the entities to save
+     * @see E for entity
+     */
+    private void saveAllPipelined(@NonNull E[] entities) {
+        getDatabase().withConnection(connection -> {
+            RedisAsyncCommands<String, String> commands = connection.async(); // The async command executor
+            int batchSize = Math.max(1, getBatchSize());
+            connection.setAutoFlushCommands(false);
+            try {
+                for (int start = 0; start < entities.length; start += batchSize) {
+                    int end = Math.min(entities.length, start + batchSize);
+                    List<PendingSave> saves = prepareSaves(entities, start, end);
+                    List<RedisFuture<?>> futures = new ArrayList<>((end - start) * 3);
+                    for (PendingSave save : saves) { // Queue the commands for this batch
+                        queueSave(commands, save, futures);
+                    }
+                    connection.flushCommands(); // Send the batch in one go
+                    await(connection, futures);
+                }
+            } finally {
+                connection.setAutoFlushCommands(true); // Restore the connection before it goes back to the pool
+            }
+            return null;
+        });
+    }
+    
+    /**
+     * Prepare the given range of entities to be saved.
+     *
+     * @param entities the entities to prepare
+     * @param start the index of the first entity, inclusive
+     * @param end the index of the last entity, exclusive
+     * @return the prepared saves
+     * @see E for entity
+     */
+    @NonNull
+    private List<PendingSave> prepareSaves(@NonNull E[] entities, int start, int end) {
+        List<PendingSave> saves = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            saves.add(prepareSave(entities[i]));
+        }
+        return saves;
+    }
+    
+    /**
+     * Prepare the given entity to be saved.
+     * <p>
+     * Everything that can fail, such as reading the id,
+     * diffing a tracked entity or serializing its fields,
+     * happens here, before any command is queued.
+     * </p>
+     *
+     * @param entity the entity to prepare
+     * @return the prepared save
+     * @see E for entity
+     */
+    @NonNull
+    private PendingSave prepareSave(@NonNull E entity) {
+        Object storedId = getIdField().read(entity); // The stored form of the entity id
+        String key = keyPrefix + ":" + storedId; // The key of the entity
+        ChangeTracker.ChangeSet changes = diff(entity); // The changes made to the entity
+        if (changes != null) { // Tracked, only write the changes
+            return new PendingSave(key, String.valueOf(storedId), null, null, changes);
+        }
+        MetricsRecorder metrics = getMetrics();
+        long start = metrics == MetricsRecorder.NOOP ? 0L : System.nanoTime(); // Only time the mapping if recording
+        Map<String, String> mappedData = new LinkedHashMap<>(); // The fields to set
+        List<String> removed = new ArrayList<>(); // The fields without a value
+        for (Map.Entry<String, Object> entry : new Document<>(entity).toMappedData().entrySet()) {
+            if (entry.getValue() == null) {
+                removed.add(entry.getKey());
+            } else {
+                mappedData.put(entry.getKey(), String.valueOf(entry.getValue())); // Hash values are always strings
+            }
+        }
+        if (metrics != MetricsRecorder.NOOP) {
+            metrics.recordMapping(getMetricsTag(), "write", System.nanoTime() - start);
+            metrics.recordBytes(getMetricsTag(), "write", encodedLength(mappedData));
+        }
+        return new PendingSave(key, String.valueOf(storedId), mappedData, removed, null);
+    }
+    
+    /**
+     * Queue the commands to save the given prepared entity.
+     * <p>
+     * The hash is written with {@code HSET}, with every value as
+     * a string and fields without a value removed by {@code HDEL}.
+     * When the entity is tracked for changes, only its changed
+     * fields are written, with whole number fields incremented
+     * by {@code HINCRBY}. The entity is then expired and
+     * tracked in our index in the same batch.
+     * </p>
+     *
+     * @param commands the command executor to queue on
+     * @param save the prepared save
+     * @param futures the list to add the command futures to
+     * @see #queueIndex(RedisAsyncCommands, String, String, List) for tracking the entity
+     */
+    private void queueSave(@NonNull RedisAsyncCommands<String, String> commands, @NonNull PendingSave save, @NonNull List<RedisFuture<?>> futures) {
+        if (save.changes == null) { // Not tracked, write the whole hash
+            futures.add(commands.hset(save.key, save.mappedData));
+            if (!save.removed.isEmpty()) {
+                futures.add(commands.hdel(save.key, save.removed.toArray(new String[0])));
+            }
+        } else {
+            queueChanges(commands, save.key, save.changes, futures);
+        }
+        queueIndex(commands, save.key, save.id, futures);
+    }
+    
+    /**
+     * Queue the commands to track the entity with the given
+     * key in our index, after it has been written.
+     * <p>
+     * When a time to live is set, the entity is expired with
+     * {@code PEXPIRE}, its id is scored by the time at which
+     * it expires, and the ids of entities that have since
+     * expired are pruned. The score is always overwritten,
+     * so an id left behind by an expired entity is revived
+     * along with the entity.
+     * </p>
+     *
+     * @param commands the command executor to queue on
+     * @param key the key of the entity
+     * @param id the id of the entity
+     * @param futures the list to add the command futures to
+     */
+    private void queueIndex(@NonNull RedisAsyncCommands<String, String> commands, @NonNull String key, @NonNull String id, @NonNull List<RedisFuture<?>> futures) {
+        long timeToLive = this.timeToLive;
+        if (timeToLive > 0L) { // Let Redis expire the entity
+            long now = System.currentTimeMillis();
+            futures.add(commands.pexpire(key, timeToLive));
+            futures.add(commands.zadd(indexKey, now + timeToLive, id)); // Track the id in our index
+            futures.add(commands.zremrangebyscore(indexKey, Range.create(0L, now))); // Prune the ids of expired entities
+        } else {
+            futures.add(commands.zadd(indexKey, NO_EXPIRY, id)); // Track the id in our index
+        }
+    }
+    
+    /**
+     * Queue the commands to write the given changes.
+     *
+     * @param commands the command executor to queue on
+     * @param key the key of the entity
+     * @param changes the changes to write
+     * @param futures the list to add the command futures to
+     */
+    private static void queueChanges(@NonNull RedisAsyncCommands<String, String> commands, @NonNull String key,
+                                     @NonNull ChangeTracker.ChangeSet changes, @NonNull List<RedisFuture<?>> futures) {
+        Map<String, String> updated = new LinkedHashMap<>(); // The fields to set
+        List<String> removed = new ArrayList<>(); // The fields that were cleared
+        for (Map.Entry<String, Object> entry : changes.getUpdated().entrySet()) {
+            if (entry.getValue() == null) {
+                removed.add(entry.getKey());
+            } else {
+                updated.put(entry.getKey(), String.valueOf(entry.getValue()));
+            }
+        }
+        if (!updated.isEmpty()) {
+            futures.add(commands.hset(key, updated));
         }
-        for (E entity : entities) { // Set our entities
-            Document<String> document = new Document<>(entity); // Create a document from the entity
-            commands.hmset(keyPrefix + ":" + document.getKey(), document.toMappedData());
+        if (!removed.isEmpty()) {
+            futures.add(commands.hdel(key, removed.toArray(new String[0])));
         }
-        if (multi) { // Execute the commands in bulk
-            commands.exec();
+        for (Map.Entry<String, Long> entry : changes.getIncrements().entrySet()) {
+            futures.add(commands.hincrby(key, entry.getKey(), entry.getValue()));
         }
     }
     
+    /**
+     * Check if the given error thrown by an operation is transient.
+     * <p>
+     * Connection errors, timeouts and commands rejected
+     * while reconnecting are transient, errors replied
+     * by the server are not.
+     * </p>
+     *
+     * @param ex the error
+     * @return whether the error is transient
+     */
+    @Override
+    protected boolean isTransient(@NonNull Throwable ex) {
+        return ex instanceof RedisException && !(ex instanceof RedisCommandExecutionException);
+    }
+    
+    /**
+     * Check if the given error thrown by an
+     * operation is a reply from the server.
+     *
+     * @param ex the error
+     * @return whether the error is a reply from the server
+     */
+    @Override
+    protected boolean isReply(@NonNull Throwable ex) {
+        return ex instanceof RedisCommandExecutionException || super.isReply(ex);
+    }
+    
+    /**
+     * Get the range of index scores
+     * belonging to live entities.
+     *
+     * @return the live range
+     */
+    @NonNull
+    private static Range<Long> liveRange() {
+        return Range.from(Range.Boundary.excluding(System.currentTimeMillis()), Range.Boundary.unbounded());
+    }
+    
+    /**
+     * Wait for the given command futures to complete.
+     *
+     * @param connection the connection the commands were sent on
+     * @param futures the futures to wait for
+     * @throws RedisCommandTimeoutException if the commands timed out
+     */
+    private static void await(@NonNull StatefulRedisConnection<String, String> connection, @NonNull List<? extends RedisFuture<?>> futures)
+        throws RedisCommandTimeoutException {
+        if (!LettuceFutures.awaitAll(connection.getTimeout().toNanos(), TimeUnit.NANOSECONDS, futures.toArray(new RedisFuture[0]))) {
+            throw new RedisCommandTimeoutException("Timed out waiting on commands");
+        }
+    }
+    
+    /**
+     * Set the time to live of saved entities.
+     * <p>
+     * This overrides the {@link TimeToLive} declared
+     * on the entity, and applies to entities saved,
+     * or written by a field operation, from now on.
+     * </p>
+     *
+     * @param timeToLive the time to live, 0 or less to never expire
+     * @param unit the unit of the time to live
+     */
+    public void setTimeToLive(long timeToLive, @NonNull TimeUnit unit) {
+        this.timeToLive = unit.toMillis(timeToLive);
+    }
+    
+    /**
+     * Atomically increment a whole number field of the
+     * entity with the given id using {@code HINCRBY}.
+     * <p>
+     * Redis holds the field as a 64-bit integer, so if the
+     * result doesn't fit the type of the field, the
+     * increment is undone and rejected.
+     * </p>
+     *
+     * @param id the entity id
+     * @param field the name or key of the field to increment
+     * @param delta the amount to increment by, negative to decrement
+     * @return the value of the field after the increment
+     * @throws IllegalArgumentException if the field doesn't exist, isn't a whole number, or the delta or result doesn't fit its type
+     * @see ID for id
+     */
+    @Override
+    public long increment(@NonNull ID id, @NonNull String field, long delta) throws IllegalArgumentException {
+        EntityMetadata.EntityField entityField = resolveIncrement(field, delta); // The field to increment
+        return record("increment", false, () -> {
+            StatefulRedisConnection<String, String> connection = getDatabase().getBootstrap();
+            RedisAsyncCommands<String, String> commands = connection.async(); // The async command executor
+            String key = keyPrefix + ":" + id; // The key of the entity
+            RedisFuture<Long> incremented = commands.hincrby(key, entityField.getKey(), delta);
+            List<RedisFuture<?>> futures = new ArrayList<>(Collections.singletonList(incremented));
+            queueIndex(commands, key, String.valueOf(id), futures);
+            await(connection, futures);
+            long value = incremented.toCompletableFuture().join();
+            if (value < entityField.getMinValue() || value > entityField.getMaxValue()) { // Overflowed the field type, undo it
+                await(connection, Collections.singletonList(commands.hincrby(key, entityField.getKey(), -delta)));
+                throw new IllegalArgumentException("Incrementing field " + entityField.getField().getName() + " by " + delta
+                                                       + " overflows its type " + entityField.getType().getSimpleName());
+            }
+            return value;
+        });
+    }
+    
+    /**
+     * Atomically append the given value to a
+     * serializable collection field of the
+     * entity with the given id.
+     * <p>
+     * The hash is watched on a dedicated connection while
+     * the field is read and appended to, and the write is
+     * retried if another client changed it in the meantime,
+     * up to {@link #MAX_COMPARE_AND_SET_ATTEMPTS} times.
+     * </p>
+     *
+     * @param id the entity id
+     * @param field the name or key of the collection field to append to
+     * @param value the value to append
+     * @throws IllegalArgumentException if the field doesn't exist or isn't a serializable collection
+     * @throws ConcurrentModificationException if other clients kept changing the hash
+     * @see ID for id
+     */
+    @Override
+    public void push(@NonNull ID id, @NonNull String field, Object value) throws IllegalArgumentException, ConcurrentModificationException {
+        EntityMetadata.EntityField entityField = resolveField(field); // The field to append to
+        if (!entityField.isSerializable()) { // Hash fields can only hold serialized collections
+            throw new IllegalArgumentException("Field " + entityField.getField().getName() + " must be @Serializable to be pushed to");
+        }
+        record("push", false, () -> {
+            String key = keyPrefix + ":" + id; // The key of the entity
+            getDatabase().withConnection(connection -> {
+                RedisCommands<String, String> commands = connection.sync(); // The sync command executor
+                compareAndSet("Field " + entityField.getKey() + " of " + key, () -> {
+                    commands.watch(key);
+                    Object updated = appendStored(entityField, commands.hget(key, entityField.getKey()), value);
+                    commands.multi();
+                    commands.hset(key, entityField.getKey(), String.valueOf(updated));
+                    queueIndex(connection.async(), key, String.valueOf(id), new ArrayList<>());
+                    return !commands.exec().wasDiscarded(); // Discarded if another client changed the hash
+                });
+                return null;
+            });
+        });
+    }
+    
+    /**
+     * Atomically set a field of the entity with the given
+     * id, only if the field has no value yet, using {@code HSETNX}.
+     *
+     * @param id the entity id
+     * @param field the name or key of the field to set
+     * @param value the value to set
+     * @return whether the value was set
+     * @throws IllegalArgumentException if the field doesn't exist
+     * @see ID for id
+     */
+    @Override
+    public boolean setIfAbsent(@NonNull ID id, @NonNull String field, @NonNull Object value) throws IllegalArgumentException {
+        EntityMetadata.EntityField entityField = resolveField(field); // The field to set
+        return record("setIfAbsent", false, () -> {
+            StatefulRedisConnection<String, String> connection = getDatabase().getBootstrap();
+            RedisAsyncCommands<String, String> commands = connection.async(); // The async command executor
+            String key = keyPrefix + ":" + id; // The key of the entity
+            RedisFuture<Boolean> set = commands.hsetnx(key, entityField.getKey(), String.valueOf(entityField.toStored(value)));
+            List<RedisFuture<?>> futures = new ArrayList<>(Collections.singletonList(set));
+            queueIndex(commands, key, String.valueOf(id), futures);
+            await(connection, futures);
+            return set.toCompletableFuture().join();
+        });
+    }
+    
     /**
      * Get the amount of stored entities.
+     * <p>
+     * This is read from the index. If the index has never
+     * been built, such as for entities saved before it
+     * existed, it's built with {@link #reindex()} first.
+     * </p>
      *
      * @return the amount of stored entities
      * @see E for entity
      */
     @Override
     public long count() {
-        return findAll().size();
+        return record("count", true, () -> {
+            ensureIndexed();
+            return getDatabase().getBootstrap().sync().zcount(indexKey, liveRange());
+        });
+    }
+    
+    /**
+     * Make sure our index has been built from the entity keys.
+     * <p>
+     * Saves only index the entities they write, so entities
+     * saved before the index existed are missing from it.
+     * The first time this is called, the index is rebuilt
+     * unless a previous {@link #reindex()} marked it as built.
+     * </p>
+     */
+    private void ensureIndexed() {
+        if (indexed) { // We've already checked
+            return;
+        }
+        if (getDatabase().getBootstrap().sync().exists(indexedKey) == 0L) { // Never built, build it now
+            rebuildIndex();
+        }
+        indexed = true;
+    }
+    
+    /**
+     * Rebuild the index of this repository
+     * from the entity keys currently stored.
+     * <p>
+     * This is run automatically the first time entities
+     * are counted, if the index has never been built.
+     * The index is built under a temporary key, with each
+     * id scored by the remaining time to live of its key,
+     * and then renamed over the current index at once, so
+     * readers never see a partially built index. Entities
+     * first saved while the index is being rebuilt may be
+     * missing from it until they are saved again.
+     * </p>
+     */
+    public void reindex() {
+        record("reindex", true, this::rebuildIndex);
+    }
+    
+    /**
+     * Rebuild the index of this repository, see {@link #reindex()}.
+     */
+    private void rebuildIndex() {
+        StatefulRedisConnection<String, String> connection = getDatabase().getBootstrap();
+        RedisAsyncCommands<String, String> commands = connection.async(); // The async command executor
+        String buildKey = indexKey + "#build:" + UUID.randomUUID(); // The key to build the index under
+        boolean empty = true; // Whether no entities were indexed
+        try {
+            Iterator<List<String>> batches = scanKeys();
+            while (batches.hasNext()) {
+                List<String> keys = batches.next();
+                List<RedisFuture<Long>> timesToLive = new ArrayList<>(keys.size());
+                for (String key : keys) { // Queue our commands without waiting on each reply
+                    timesToLive.add(commands.pttl(key));
+                }
+                await(connection, timesToLive);
+                List<Object> scoresAndIds = toScoresAndIds(keys, timesToLive);
+                if (!scoresAndIds.isEmpty()) {
+                    await(connection, Collections.singletonList(commands.zadd(buildKey, scoresAndIds.toArray())));
+                    empty = false;
+                }
+            }
+            // Swap the built index in, a rename can't create an empty set so delete the index instead
+            await(connection, Arrays.asList(empty ? commands.del(indexKey) : commands.rename(buildKey, indexKey), commands.set(indexedKey, "1")));
+        } catch (RuntimeException ex) {
+            commands.del(buildKey); // Don't leave a partial index behind
+            throw ex;
+        }
+    }
+    
+    /**
+     * Score the given keys by the time at which they
+     * expire, skipping any key that no longer exists.
+     *
+     * @param keys the keys to score
+     * @param timesToLive the {@code PTTL} replies for the keys, in the same order
+     * @return the scores and ids, alternating, as {@code ZADD} takes them
+     */
+    @NonNull
+    private List<Object> toScoresAndIds(@NonNull List<String> keys, @NonNull List<? extends RedisFuture<Long>> timesToLive) {
+        long now = System.currentTimeMillis();
+        List<Object> scoresAndIds = new ArrayList<>(keys.size() * 2);
+        for (int i = 0; i < keys.size(); i++) {
+            long timeToLive = timesToLive.get(i).toCompletableFuture().join(); // -2 if gone, -1 if it never expires
+            if (timeToLive == -2L) { // Dropped or expired since being scanned
+                continue;
+            }
+            scoresAndIds.add(timeToLive < 0L ? NO_EXPIRY : (double) (now + timeToLive));
+            scoresAndIds.add(keys.get(i).substring(keyPrefix.length() + 1)); // Strip the prefix from the key to get the id
+        }
+        return scoresAndIds;
+    }
+    
+    /**
+     * Get the non-blocking view of this repository,
+     * backed by the Lettuce async command API.
+     *
+     * @return the async repository
+     */
+    @NonNull
+    public AsyncRepository<ID, E> async() {
+        return async;
     }
     
     /**
@@ -106,7 +840,7 @@ public class RedisRepository<ID, E> extends Repository<Redis, ID, E> {
      */
     @Override
     public void dropById(@NonNull ID id) {
-        getDatabase().getBootstrap().sync().del(keyPrefix + ":" + id);
+        record("dropById", true, () -> unlinkAll(new String[] { String.valueOf(id) }));
     }
     
     /**
@@ -117,7 +851,532 @@ public class RedisRepository<ID, E> extends Repository<Redis, ID, E> {
      */
     @Override
     public void drop(@NonNull E entity) {
-        me.braydon.feather.data.Document<Object> document = new me.braydon.feather.data.Document<>(entity); // Create a document from the entity
-        getDatabase().getBootstrap().sync().del(keyPrefix + ":" + document.getKey());
+        record("drop", true, () -> {
+            unlinkAll(new String[] { String.valueOf(getIdField().read(entity)) });
+            forget(entity);
+        });
+    }
+    
+    /**
+     * Drop the entities with the given ids
+     * using a single variadic {@code UNLINK}.
+     *
+     * @param ids the entity ids to drop
+     * @see ID for id
+     * @see E for entity
+     */
+    @Override
+    public void dropAllById(@NonNull Collection<ID> ids) {
+        record("dropAllById", ids.size(), true, () -> {
+            String[] stringIds = new String[ids.size()];
+            int index = 0;
+            for (ID id : ids) {
+                stringIds[index++] = String.valueOf(id);
+            }
+            unlinkAll(stringIds);
+        });
+    }
+    
+    /**
+     * Drop the given entities using a single variadic {@code UNLINK}.
+     *
+     * @param entities the entities to drop
+     * @see E for entity
+     */
+    @Override
+    public void dropAll(@NonNull E... entities) {
+        record("dropAll", entities.length, true, () -> {
+            EntityMetadata.EntityField idField = getIdField(); // The field annotated with @Id
+            String[] ids = new String[entities.length];
+            for (int i = 0; i < entities.length; i++) {
+                ids[i] = String.valueOf(idField.read(entities[i]));
+                forget(entities[i]);
+            }
+            unlinkAll(ids);
+        });
+    }
+    
+    /**
+     * Unlink the entities with the given ids and remove
+     * them from our index, queueing both commands before
+     * waiting on either reply so they share a round-trip.
+     *
+     * @param ids the entity ids to drop
+     */
+    private void unlinkAll(@NonNull String[] ids) {
+        if (ids.length == 0) { // Nothing to drop
+            return;
+        }
+        String[] keys = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            keys[i] = keyPrefix + ":" + ids[i];
+        }
+        StatefulRedisConnection<String, String> connection = getDatabase().getBootstrap();
+        RedisAsyncCommands<String, String> commands = connection.async(); // The async command executor
+        await(connection, Arrays.asList(commands.unlink(keys), commands.zrem(indexKey, ids)));
+    }
+    
+    /**
+     * Iterate the keys of the entities in this repository
+     * with {@code SCAN}, one batch per round-trip.
+     *
+     * @return the key batch iterator
+     */
+    @NonNull
+    private Iterator<List<String>> scanKeys() {
+        RedisCommands<String, String> commands = getDatabase().getBootstrap().sync(); // The sync command executor
+        ScanArgs scanArgs = ScanArgs.Builder.matches(keyPrefix + ":*").limit(getBatchSize()); // Match our keys in batches
+        return new Iterator<List<String>>() {
+            /**
+             * The current scan cursor, null if we haven't started.
+             */
+            private ScanCursor cursor;
+            
+            @Override
+            public boolean hasNext() {
+                return cursor == null || !cursor.isFinished();
+            }
+            
+            @Override
+            public List<String> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                KeyScanCursor<String> scanCursor = cursor == null ? commands.scan(scanArgs) : commands.scan(cursor, scanArgs);
+                cursor = scanCursor;
+                return scanCursor.getKeys();
+            }
+        };
+    }
+    
+    /**
+     * Load the entities with the given keys using
+     * pipelined {@code HGETALL}'s, skipping any
+     * key that no longer exists.
+     *
+     * @param keys the keys of the entities to load
+     * @return the loaded entities
+     * @see E for entity
+     */
+    @NonNull
+    private List<E> loadAll(@NonNull List<String> keys) {
+        List<E> entities = new ArrayList<>(keys.size());
+        for (Map<String, String> mappedData : hgetallAll(keys)) {
+            if (mappedData != null && !mappedData.isEmpty()) { // The entity was dropped after being scanned
+                entities.add(toEntity(mappedData));
+            }
+        }
+        return entities;
+    }
+    
+    /**
+     * Map the given raw entity data into an
+     * entity, recording the bytes it was read from.
+     * <p>
+     * Redis replies to {@code HGETALL} on a missing
+     * key with an empty hash, which maps to null.
+     * </p>
+     *
+     * @param mappedData the raw entity data
+     * @return the entity, null if no data was given
+     * @see E for entity
+     */
+    private E toEntity(Map<String, String> mappedData) {
+        if (mappedData == null || mappedData.isEmpty()) { // No such entity
+            return null;
+        }
+        MetricsRecorder metrics = getMetrics();
+        if (metrics != MetricsRecorder.NOOP) {
+            metrics.recordBytes(getMetricsTag(), "read", encodedLength(mappedData));
+        }
+        return newEntity(mappedData);
+    }
+    
+    /**
+     * Get the size of the given raw entity
+     * data, as its UTF-8 encoded fields and values.
+     *
+     * @param mappedData the raw entity data
+     * @return the size in bytes
+     */
+    private static long encodedLength(@NonNull Map<String, String> mappedData) {
+        long length = 0L;
+        for (Map.Entry<String, String> entry : mappedData.entrySet()) {
+            length += Utf8.encodedLength(entry.getKey());
+            if (entry.getValue() != null) {
+                length += Utf8.encodedLength(entry.getValue());
+            }
+        }
+        return length;
+    }
+    
+    /**
+     * Check if the given raw entity data matches the filters of the given query.
+     *
+     * @param query the query to check against
+     * @param mappedData the raw entity data
+     * @return whether the data matches
+     */
+    private static boolean matches(@NonNull Query query, @NonNull Map<String, String> mappedData) {
+        for (Filter filter : query.getFilters()) {
+            if (!filter.matches(mappedData.get(filter.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Run {@code HMGET} with the given fields for each
+     * of the given keys, queueing every command before
+     * waiting on any reply so the batch is pipelined.
+     *
+     * @param keys the keys of the hashes to get
+     * @param fields the fields to get from each hash
+     * @return the hashes, in the same order as the keys, holding only the fields that exist
+     */
+    @NonNull
+    private List<Map<String, String>> hmgetAll(@NonNull List<String> keys, @NonNull String[] fields) {
+        if (keys.isEmpty()) { // Nothing to get
+            return Collections.emptyList();
+        }
+        StatefulRedisConnection<String, String> connection = getDatabase().getBootstrap();
+        RedisAsyncCommands<String, String> commands = connection.async(); // The async command executor
+        List<RedisFuture<List<KeyValue<String, String>>>> futures = new ArrayList<>(keys.size());
+        for (String key : keys) { // Queue our commands without waiting on each reply
+            futures.add(commands.hmget(key, fields));
+        }
+        long timeout = connection.getTimeout().toNanos(); // The command timeout
+        List<Map<String, String>> results = new ArrayList<>(futures.size());
+        for (RedisFuture<List<KeyValue<String, String>>> future : futures) {
+            Map<String, String> mappedData = new HashMap<>();
+            for (KeyValue<String, String> keyValue : LettuceFutures.awaitOrCancel(future, timeout, TimeUnit.NANOSECONDS)) {
+                if (keyValue.hasValue()) {
+                    mappedData.put(keyValue.getKey(), keyValue.getValue());
+                }
+            }
+            results.add(mappedData);
+        }
+        return results;
+    }
+    
+    /**
+     * Run {@code HGETALL} for each of the given keys,
+     * queueing every command before waiting on
+     * any reply so the batch is pipelined.
+     *
+     * @param keys the keys of the hashes to get
+     * @return the hashes, in the same order as the keys
+     */
+    @NonNull
+    private List<Map<String, String>> hgetallAll(@NonNull List<String> keys) {
+        if (keys.isEmpty()) { // Nothing to get
+            return Collections.emptyList();
+        }
+        StatefulRedisConnection<String, String> connection = getDatabase().getBootstrap();
+        RedisAsyncCommands<String, String> commands = connection.async(); // The async command executor
+        List<RedisFuture<Map<String, String>>> futures = new ArrayList<>(keys.size());
+        for (String key : keys) { // Queue our commands without waiting on each reply
+            futures.add(commands.hgetall(key));
+        }
+        long timeout = connection.getTimeout().toNanos(); // The command timeout
+        List<Map<String, String>> results = new ArrayList<>(futures.size());
+        for (RedisFuture<Map<String, String>> future : futures) {
+            results.add(LettuceFutures.awaitOrCancel(future, timeout, TimeUnit.NANOSECONDS));
+        }
+        return results;
+    }
+    
+    /**
+     * The ways in which multiple entities can be saved.
+     */
+    public enum WriteMode {
+        /**
+         * Queue the commands for a batch of entities and send
+         * them at once, without transactional guarantees.
+         */
+        PIPELINED,
+        
+        /**
+         * Save all entities atomically with {@code MULTI}/{@code EXEC}.
+         */
+        TRANSACTIONAL
+    }
+    
+    /**
+     * The {@link AsyncRepository} view of this repository.
+     * <p>
+     * Saves are issued without {@code MULTI}/{@code EXEC},
+     * as a transaction cannot be safely shared with other
+     * callers on the multiplexed connection.
+     * </p>
+     */
+    private final class RedisAsyncRepository implements AsyncRepository<ID, E> {
+        /**
+         * Get the entity with the given id.
+         *
+         * @param id the entity id
+         * @return the future entity with the id, completed with null if none
+         * @see ID for id
+         * @see E for entity
+         */
+        @Override @NonNull
+        public CompletableFuture<E> find(@NonNull ID id) {
+            return recordAsync("find", () -> commands().hgetall(keyPrefix + ":" + id).toCompletableFuture().thenApply(RedisRepository.this::toEntity));
+        }
+        
+        /**
+         * Get all entities within this repository.
+         *
+         * @return the future entities
+         * @see E for entity
+         */
+        @Override @NonNull
+        public CompletableFuture<List<E>> findAll() {
+            ScanArgs scanArgs = ScanArgs.Builder.matches(keyPrefix + ":*").limit(getBatchSize()); // Match our keys in batches
+            return recordAsync("findAll", () -> findAll(commands().scan(scanArgs).toCompletableFuture(), scanArgs, new HashSet<>(), new ArrayList<>())
+                                                    .thenApply(Collections::unmodifiableList));
+        }
+        
+        /**
+         * Load the entities for the given scan
+         * batch, then continue with the next one.
+         *
+         * @param scan the pending scan batch
+         * @param scanArgs the scan arguments
+         * @param seenKeys the keys that have already been loaded
+         * @param entities the entities loaded so far
+         * @return the future entities
+         */
+        @NonNull
+        private CompletableFuture<List<E>> findAll(@NonNull CompletableFuture<KeyScanCursor<String>> scan, @NonNull ScanArgs scanArgs,
+                                                   @NonNull Set<String> seenKeys, @NonNull List<E> entities) {
+            return scan.thenCompose(cursor -> {
+                List<CompletableFuture<Map<String, String>>> futures = new ArrayList<>();
+                for (String key : cursor.getKeys()) { // Queue our commands without waiting on each reply
+                    if (seenKeys.add(key)) { // SCAN may return a key more than once
+                        futures.add(commands().hgetall(key).toCompletableFuture());
+                    }
+                }
+                return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenCompose(ignored -> {
+                    for (CompletableFuture<Map<String, String>> future : futures) {
+                        Map<String, String> mappedData = future.join();
+                        if (mappedData != null && !mappedData.isEmpty()) { // The entity was dropped after being scanned
+                            entities.add(toEntity(mappedData));
+                        }
+                    }
+                    if (cursor.isFinished()) { // No more keys to scan
+                        return CompletableFuture.completedFuture(entities);
+                    }
+                    return findAll(commands().scan(cursor, scanArgs).toCompletableFuture(), scanArgs, seenKeys, entities);
+                });
+            });
+        }
+        
+        /**
+         * Save the given entities.
+         *
+         * @param entities the entities to save
+         * @return the future completed once saved
+         * @see E for entity
+         */
+        @Override @NonNull
+        public CompletableFuture<Void> saveAll(@NonNull E... entities) {
+            getMetrics().recordBatchSize(getMetricsTag(), "saveAll", entities.length);
+            return recordAsync("saveAll", () -> {
+                List<PendingSave> saves = prepareSaves(entities, 0, entities.length);
+                RedisAsyncCommands<String, String> commands = commands(); // The async command executor
+                List<RedisFuture<?>> futures = new ArrayList<>();
+                for (PendingSave save : saves) { // Set our entities
+                    queueSave(commands, save, futures);
+                }
+                CompletableFuture<?>[] completableFutures = new CompletableFuture[futures.size()];
+                for (int i = 0; i < completableFutures.length; i++) {
+                    completableFutures[i] = futures.get(i).toCompletableFuture();
+                }
+                return CompletableFuture.allOf(completableFutures).thenRun(() -> {
+                    for (E entity : entities) { // Saved, take new snapshots
+                        track(entity);
+                    }
+                });
+            });
+        }
+        
+        /**
+         * Get the amount of stored entities.
+         * <p>
+         * If the index has never been built, it's built
+         * without blocking before the entities are counted.
+         * </p>
+         *
+         * @return the future amount of stored entities
+         * @see E for entity
+         */
+        @Override @NonNull
+        public CompletableFuture<Long> count() {
+            return recordAsync("count", () -> ensureIndexed().thenCompose(ignored -> commands().zcount(indexKey, liveRange()).toCompletableFuture()));
+        }
+        
+        /**
+         * Make sure our index has been built from the entity keys.
+         *
+         * @return the future completed once the index is built
+         * @see RedisRepository#ensureIndexed() for the blocking version
+         */
+        @NonNull
+        private CompletableFuture<Void> ensureIndexed() {
+            if (indexed) { // We've already checked
+                return CompletableFuture.completedFuture(null);
+            }
+            return commands().exists(indexedKey).toCompletableFuture()
+                       .thenCompose(built -> built == 0L ? rebuildIndex() : CompletableFuture.completedFuture(null))
+                       .thenRun(() -> indexed = true);
+        }
+        
+        /**
+         * Rebuild the index of this repository.
+         *
+         * @return the future completed once the index is rebuilt
+         * @see RedisRepository#reindex() for how the index is rebuilt
+         */
+        @NonNull
+        private CompletableFuture<Void> rebuildIndex() {
+            ScanArgs scanArgs = ScanArgs.Builder.matches(keyPrefix + ":*").limit(getBatchSize()); // Match our keys in batches
+            String buildKey = indexKey + "#build:" + UUID.randomUUID(); // The key to build the index under
+            return rebuildIndex(commands().scan(scanArgs).toCompletableFuture(), scanArgs, buildKey, true).thenCompose(empty -> {
+                // Swap the built index in, a rename can't create an empty set so delete the index instead
+                RedisAsyncCommands<String, String> commands = commands(); // The async command executor
+                return CompletableFuture.allOf(
+                    (empty ? commands.del(indexKey) : commands.rename(buildKey, indexKey)).toCompletableFuture(),
+                    commands.set(indexedKey, "1").toCompletableFuture()
+                );
+            }).whenComplete((ignored, ex) -> {
+                if (ex != null) { // Don't leave a partial index behind
+                    commands().del(buildKey);
+                }
+            });
+        }
+        
+        /**
+         * Index the entities for the given scan
+         * batch, then continue with the next one.
+         *
+         * @param scan the pending scan batch
+         * @param scanArgs the scan arguments
+         * @param buildKey the key the index is built under
+         * @param empty whether no entities were indexed so far
+         * @return the future of whether no entities were indexed
+         */
+        @NonNull
+        private CompletableFuture<Boolean> rebuildIndex(@NonNull CompletableFuture<KeyScanCursor<String>> scan, @NonNull ScanArgs scanArgs,
+                                                        @NonNull String buildKey, boolean empty) {
+            return scan.thenCompose(cursor -> {
+                List<RedisFuture<Long>> timesToLive = new ArrayList<>(cursor.getKeys().size());
+                for (String key : cursor.getKeys()) { // Queue our commands without waiting on each reply
+                    timesToLive.add(commands().pttl(key));
+                }
+                CompletableFuture<?>[] completableFutures = new CompletableFuture[timesToLive.size()];
+                for (int i = 0; i < completableFutures.length; i++) {
+                    completableFutures[i] = timesToLive.get(i).toCompletableFuture();
+                }
+                return CompletableFuture.allOf(completableFutures).thenCompose(ignored -> {
+                    List<Object> scoresAndIds = toScoresAndIds(cursor.getKeys(), timesToLive);
+                    CompletableFuture<?> added = scoresAndIds.isEmpty() ? CompletableFuture.completedFuture(null)
+                                                     : commands().zadd(buildKey, scoresAndIds.toArray()).toCompletableFuture();
+                    boolean stillEmpty = empty && scoresAndIds.isEmpty();
+                    return added.thenCompose(done -> {
+                        if (cursor.isFinished()) { // No more keys to scan
+                            return CompletableFuture.completedFuture(stillEmpty);
+                        }
+                        return rebuildIndex(commands().scan(cursor, scanArgs).toCompletableFuture(), scanArgs, buildKey, stillEmpty);
+                    });
+                });
+            });
+        }
+        
+        /**
+         * Drop the entity with the given id.
+         *
+         * @param id the entity id to drop
+         * @return the future completed once dropped
+         * @see ID for id
+         * @see E for entity
+         */
+        @Override @NonNull
+        public CompletableFuture<Void> dropById(@NonNull ID id) {
+            return recordAsync("dropById", () -> drop(String.valueOf(id)));
+        }
+        
+        /**
+         * Drop the given entity.
+         *
+         * @param entity the entity to drop
+         * @return the future completed once dropped
+         * @see E for entity
+         */
+        @Override @NonNull
+        public CompletableFuture<Void> drop(@NonNull E entity) {
+            return recordAsync("drop", () -> {
+                forget(entity);
+                return drop(String.valueOf(getIdField().read(entity)));
+            });
+        }
+        
+        /**
+         * Drop the entity with the given id
+         * and remove it from our index.
+         *
+         * @param id the entity id to drop
+         * @return the future completed once dropped
+         */
+        @NonNull
+        private CompletableFuture<Void> drop(@NonNull String id) {
+            RedisAsyncCommands<String, String> commands = commands(); // The async command executor
+            return CompletableFuture.allOf(
+                commands.del(keyPrefix + ":" + id).toCompletableFuture(),
+                commands.zrem(indexKey, id).toCompletableFuture()
+            );
+        }
+        
+        /**
+         * Get the async command executor.
+         *
+         * @return the async command executor
+         */
+        @NonNull
+        private RedisAsyncCommands<String, String> commands() {
+            return getDatabase().getBootstrap().async();
+        }
+    }
+    
+    /**
+     * An entity that has been mapped, ready to have its commands queued.
+     */
+    @AllArgsConstructor
+    private static final class PendingSave {
+        /**
+         * The key of the entity.
+         */
+        @NonNull private final String key;
+        
+        /**
+         * The id of the entity, as stored in our index.
+         */
+        @NonNull private final String id;
+        
+        /**
+         * The fields to set, null if the entity is tracked.
+         */
+        private final Map<String, String> mappedData;
+        
+        /**
+         * The fields without a value, null if the entity is tracked.
+         */
+        private final List<String> removed;
+        
+        /**
+         * The changes to write, null if the entity isn't tracked.
+         */
+        private final ChangeTracker.ChangeSet changes;
     }
 }
\ No newline at end of file
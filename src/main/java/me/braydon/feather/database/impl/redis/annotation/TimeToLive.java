@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database.impl.redis.annotation;
+
+import me.braydon.feather.database.impl.redis.Redis;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entities flagged with this annotation will be
+ * expired by {@link Redis} after the given time.
+ * <p>
+ * The time to live is reset every time
+ * the entity is saved.
+ * </p>
+ *
+ * @author Braydon
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Documented @Inherited
+public @interface TimeToLive {
+    /**
+     * The time to live.
+     *
+     * @return the time to live
+     */
+    long value();
+    
+    /**
+     * The unit of the time to live.
+     *
+     * @return the time unit
+     */
+    TimeUnit unit() default TimeUnit.SECONDS;
+}
\ No newline at end of file
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database.impl.redis.codec;
+
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import me.braydon.feather.database.impl.redis.Redis;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A UTF-8 string {@link RedisCodec} used by {@link Redis}
+ * that Deflate compresses values above a size threshold.
+ * <p>
+ * Compressed values are stored as raw bytes behind a
+ * {@link #MARKER}. The marker starts with {@code 0xFF},
+ * a byte that never appears in UTF-8, so values written
+ * without compression are always read as-is, and
+ * compressed values are always inflated, regardless of
+ * the current threshold. Keys are never compressed.
+ * </p>
+ *
+ * @author Braydon
+ */
+public final class CompressingStringCodec implements RedisCodec<String, String> {
+    /**
+     * The marker prefixed to compressed values.
+     */
+    private static final byte[] MARKER = { (byte) 0xFF, 'Z' };
+    
+    /**
+     * The size in bytes from which values are
+     * compressed, 0 or less to disable compression.
+     */
+    @Getter @Setter private volatile int compressionThreshold;
+    
+    /**
+     * The Deflate compression level to use.
+     *
+     * @see Deflater for the levels
+     */
+    @Getter @Setter private volatile int compressionLevel = Deflater.BEST_SPEED;
+    
+    /**
+     * Decode the given key.
+     *
+     * @param bytes the raw key
+     * @return the decoded key
+     */
+    @Override
+    public String decodeKey(ByteBuffer bytes) {
+        return StringCodec.UTF8.decodeKey(bytes);
+    }
+    
+    /**
+     * Decode the given value, inflating
+     * it if it was compressed.
+     *
+     * @param bytes the raw value
+     * @return the decoded value
+     */
+    @Override
+    public String decodeValue(ByteBuffer bytes) {
+        if (bytes == null || !isCompressed(bytes)) { // Plain value
+            return StringCodec.UTF8.decodeValue(bytes);
+        }
+        byte[] compressed = new byte[bytes.remaining() - MARKER.length];
+        bytes.position(bytes.position() + MARKER.length);
+        bytes.get(compressed);
+        
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && inflater.needsInput()) { // Truncated value
+                    throw new IllegalStateException("Compressed value is truncated");
+                }
+                out.write(buffer, 0, inflated);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException("Compressed value is corrupt", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+    
+    /**
+     * Encode the given key.
+     *
+     * @param key the key
+     * @return the raw key
+     */
+    @Override
+    public ByteBuffer encodeKey(String key) {
+        return StringCodec.UTF8.encodeKey(key);
+    }
+    
+    /**
+     * Encode the given value, compressing it if
+     * it's above the threshold and compression
+     * actually makes it smaller.
+     *
+     * @param value the value
+     * @return the raw value
+     */
+    @Override
+    public ByteBuffer encodeValue(String value) {
+        int threshold = compressionThreshold;
+        // Compression is disabled, or the value can't reach the threshold
+        if (value == null || threshold <= 0 || value.length() * 3 < threshold) {
+            return StringCodec.UTF8.encodeValue(value);
+        }
+        byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+        if (raw.length < threshold) { // Below the threshold, store as-is
+            return ByteBuffer.wrap(raw);
+        }
+        Deflater deflater = new Deflater(compressionLevel);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] compressed = new byte[raw.length]; // Anything larger isn't worth storing
+            System.arraycopy(MARKER, 0, compressed, 0, MARKER.length);
+            int length = MARKER.length;
+            while (!deflater.finished() && length < compressed.length) {
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+            if (!deflater.finished()) { // Compression didn't help, store as-is
+                return ByteBuffer.wrap(raw);
+            }
+            return ByteBuffer.wrap(compressed, 0, length);
+        } finally {
+            deflater.end();
+        }
+    }
+    
+    /**
+     * Check if the given raw value is compressed.
+     *
+     * @param bytes the raw value
+     * @return whether the value is compressed
+     */
+    private static boolean isCompressed(@NonNull ByteBuffer bytes) {
+        if (bytes.remaining() < MARKER.length) {
+            return false;
+        }
+        for (int i = 0; i < MARKER.length; i++) {
+            if (bytes.get(bytes.position() + i) != MARKER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
\ No newline at end of file
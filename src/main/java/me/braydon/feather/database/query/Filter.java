@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database.query;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A single condition within a {@link Query}.
+ *
+ * @author Braydon
+ */
+@Getter @ToString
+public final class Filter {
+    /**
+     * The key of the field to filter on.
+     */
+    @NonNull private final String key;
+    
+    /**
+     * The operator to filter with.
+     */
+    @NonNull private final Operator operator;
+    
+    /**
+     * The value to compare against, in its stored form.
+     * <p>
+     * For the {@link Operator#IN} operator
+     * this is a list of the values.
+     * </p>
+     */
+    private final Object value;
+    
+    Filter(@NonNull String key, @NonNull Operator operator, Object value) {
+        this.key = key;
+        this.operator = operator;
+        if (operator == Operator.IN) { // Convert each of the values
+            List<Object> values = new ArrayList<>();
+            for (Object element : (Collection<?>) value) {
+                values.add(toStored(element));
+            }
+            this.value = values;
+        } else {
+            this.value = toStored(value);
+        }
+    }
+    
+    /**
+     * Check if the given stored value matches this filter.
+     * <p>
+     * Used by databases that are unable to evaluate
+     * the filter server-side. Numeric values are
+     * compared as numbers, anything else as strings.
+     * </p>
+     *
+     * @param stored the stored value to check
+     * @return whether the value matches
+     */
+    public boolean matches(Object stored) {
+        switch (operator) {
+            case EQ:
+                return equal(stored, value);
+            case NE:
+                return !equal(stored, value);
+            case IN:
+                for (Object element : (List<?>) value) {
+                    if (equal(stored, element)) {
+                        return true;
+                    }
+                }
+                return false;
+            default:
+                if (stored == null || value == null) { // Nulls can't be ordered
+                    return false;
+                }
+                int comparison = compare(stored, value);
+                switch (operator) {
+                    case GT:
+                        return comparison > 0;
+                    case GTE:
+                        return comparison >= 0;
+                    case LT:
+                        return comparison < 0;
+                    default:
+                        return comparison <= 0;
+                }
+        }
+    }
+    
+    /**
+     * Compare the two given stored values.
+     *
+     * @param left the left value
+     * @param right the right value
+     * @return the comparison result
+     */
+    public static int compare(Object left, Object right) {
+        if (left == null || right == null) { // Nulls are ordered first
+            return left == right ? 0 : left == null ? -1 : 1;
+        }
+        if (left instanceof Number || right instanceof Number) { // Try to compare numerically
+            try {
+                return new BigDecimal(left.toString()).compareTo(new BigDecimal(right.toString()));
+            } catch (NumberFormatException ignored) {
+                // Not numeric, compare as strings
+            }
+        }
+        return left.toString().compareTo(right.toString());
+    }
+    
+    /**
+     * Check if the two given stored values are equal.
+     *
+     * @param left the left value
+     * @param right the right value
+     * @return whether the values are equal
+     */
+    private static boolean equal(Object left, Object right) {
+        if (left == null || right == null) {
+            return left == right;
+        }
+        return compare(left, right) == 0;
+    }
+    
+    /**
+     * Convert the given value into
+     * the form it is stored in.
+     *
+     * @param value the value to convert
+     * @return the stored value
+     */
+    private static Object toStored(Object value) {
+        return value instanceof UUID ? value.toString() : value;
+    }
+    
+    /**
+     * The operator of a filter.
+     */
+    public enum Operator {
+        /**
+         * The value is equal to the filter value.
+         */
+        EQ,
+        
+        /**
+         * The value is not equal to the filter value.
+         */
+        NE,
+        
+        /**
+         * The value is greater than the filter value.
+         */
+        GT,
+        
+        /**
+         * The value is greater than or equal to the filter value.
+         */
+        GTE,
+        
+        /**
+         * The value is less than the filter value.
+         */
+        LT,
+        
+        /**
+         * The value is less than or equal to the filter value.
+         */
+        LTE,
+        
+        /**
+         * The value is any of the filter values.
+         */
+        IN
+    }
+}
\ No newline at end of file
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database.query;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import me.braydon.feather.database.Repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A query to find entities within a {@link Repository}.
+ * <p>
+ * Keys are the keys of the database fields, as
+ * declared with {@link me.braydon.feather.annotation.Field}.
+ * All filters must match for an entity to be found.
+ * </p>
+ *
+ * @author Braydon
+ * @see Repository#findWhere(Query) for running a query
+ */
+@Getter @ToString
+public final class Query {
+    /**
+     * The filters of this query.
+     */
+    @NonNull private final List<Filter> filters = new ArrayList<>();
+    
+    /**
+     * The sort order of this query.
+     * <p>
+     * The key of this key-value pair is the key of the
+     * field to sort by, the value is whether to sort
+     * in ascending order.
+     * </p>
+     */
+    @NonNull private final Map<String, Boolean> sorts = new LinkedHashMap<>();
+    
+    /**
+     * The keys of the fields to fetch, empty for all fields.
+     */
+    @NonNull private final Set<String> projection = new LinkedHashSet<>();
+    
+    /**
+     * The amount of entities to skip.
+     */
+    private int skip;
+    
+    /**
+     * The maximum amount of entities to find, 0 for no limit.
+     */
+    private int limit;
+    
+    /**
+     * Only match entities where the field is equal to the value.
+     *
+     * @param key the key of the field
+     * @param value the value
+     * @return this query
+     */
+    @NonNull
+    public Query eq(@NonNull String key, Object value) {
+        return filter(key, Filter.Operator.EQ, value);
+    }
+    
+    /**
+     * Only match entities where the field is not equal to the value.
+     *
+     * @param key the key of the field
+     * @param value the value
+     * @return this query
+     */
+    @NonNull
+    public Query ne(@NonNull String key, Object value) {
+        return filter(key, Filter.Operator.NE, value);
+    }
+    
+    /**
+     * Only match entities where the field is greater than the value.
+     *
+     * @param key the key of the field
+     * @param value the value
+     * @return this query
+     */
+    @NonNull
+    public Query gt(@NonNull String key, @NonNull Object value) {
+        return filter(key, Filter.Operator.GT, value);
+    }
+    
+    /**
+     * Only match entities where the field is greater than or equal to the value.
+     *
+     * @param key the key of the field
+     * @param value the value
+     * @return this query
+     */
+    @NonNull
+    public Query gte(@NonNull String key, @NonNull Object value) {
+        return filter(key, Filter.Operator.GTE, value);
+    }
+    
+    /**
+     * Only match entities where the field is less than the value.
+     *
+     * @param key the key of the field
+     * @param value the value
+     * @return this query
+     */
+    @NonNull
+    public Query lt(@NonNull String key, @NonNull Object value) {
+        return filter(key, Filter.Operator.LT, value);
+    }
+    
+    /**
+     * Only match entities where the field is less than or equal to the value.
+     *
+     * @param key the key of the field
+     * @param value the value
+     * @return this query
+     */
+    @NonNull
+    public Query lte(@NonNull String key, @NonNull Object value) {
+        return filter(key, Filter.Operator.LTE, value);
+    }
+    
+    /**
+     * Only match entities where the field is any of the values.
+     *
+     * @param key the key of the field
+     * @param values the values
+     * @return this query
+     */
+    @NonNull
+    public Query in(@NonNull String key, @NonNull Object... values) {
+        return in(key, Arrays.asList(values));
+    }
+    
+    /**
+     * Only match entities where the field is any of the values.
+     *
+     * @param key the key of the field
+     * @param values the values
+     * @return this query
+     */
+    @NonNull
+    public Query in(@NonNull String key, @NonNull Collection<?> values) {
+        return filter(key, Filter.Operator.IN, values);
+    }
+    
+    /**
+     * Sort the found entities by the given field.
+     * <p>
+     * Calling this multiple times sorts by each
+     * field in the order they were added.
+     * </p>
+     *
+     * @param key the key of the field
+     * @param ascending whether to sort in ascending order
+     * @return this query
+     */
+    @NonNull
+    public Query sort(@NonNull String key, boolean ascending) {
+        sorts.put(key, ascending);
+        return this;
+    }
+    
+    /**
+     * Skip the given amount of entities.
+     *
+     * @param skip the amount of entities to skip
+     * @return this query
+     * @throws IllegalArgumentException if the amount is negative
+     */
+    @NonNull
+    public Query skip(int skip) throws IllegalArgumentException {
+        if (skip < 0) {
+            throw new IllegalArgumentException("Skip must not be negative");
+        }
+        this.skip = skip;
+        return this;
+    }
+    
+    /**
+     * Limit the amount of entities to find.
+     *
+     * @param limit the maximum amount of entities, 0 for no limit
+     * @return this query
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    @NonNull
+    public Query limit(int limit) throws IllegalArgumentException {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative");
+        }
+        this.limit = limit;
+        return this;
+    }
+    
+    /**
+     * Only fetch the given fields.
+     * <p>
+     * Fields that are not selected are left at
+     * their default value in the found entities.
+     * </p>
+     *
+     * @param keys the keys of the fields to fetch
+     * @return this query
+     */
+    @NonNull
+    public Query select(@NonNull String... keys) {
+        Collections.addAll(projection, keys);
+        return this;
+    }
+    
+    /**
+     * Add a filter to this query.
+     *
+     * @param key the key of the field
+     * @param operator the operator to filter with
+     * @param value the value
+     * @return this query
+     */
+    @NonNull
+    private Query filter(@NonNull String key, @NonNull Filter.Operator operator, Object value) {
+        filters.add(new Filter(key, operator, value));
+        return this;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database.resilience;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Stops operations from being sent to a database that keeps failing.
+ * <p>
+ * After {@link #getFailureThreshold()} transient failures in a
+ * row the breaker opens, and every operation is rejected right
+ * away with a {@link CircuitBreakerOpenException}, rather than
+ * waiting on a timeout. Once {@link #getOpenDuration()} has
+ * passed, a single trial operation is let through: if it
+ * succeeds the breaker closes again, otherwise it re-opens.
+ * </p>
+ *
+ * @author Braydon
+ */
+@ThreadSafe
+public final class CircuitBreaker {
+    /**
+     * The name of the database this breaker guards.
+     */
+    @NonNull private final String name;
+    
+    /**
+     * The amount of transient failures in a row
+     * after which this breaker opens.
+     */
+    @Getter private volatile int failureThreshold = 5;
+    
+    /**
+     * The time this breaker stays open for
+     * before a trial operation, in milliseconds.
+     */
+    @Getter private volatile long openDuration = TimeUnit.SECONDS.toMillis(30L);
+    
+    /**
+     * The current state of this breaker.
+     */
+    @NonNull private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    
+    /**
+     * The amount of transient failures in a row.
+     */
+    @NonNull private final AtomicInteger failures = new AtomicInteger();
+    
+    /**
+     * The time this breaker last opened at, from {@link System#nanoTime()}.
+     */
+    private volatile long openedAt;
+    
+    public CircuitBreaker(@NonNull String name) {
+        this.name = name;
+    }
+    
+    /**
+     * Set the amount of transient failures in
+     * a row after which this breaker opens.
+     *
+     * @param failureThreshold the failure threshold
+     * @throws IllegalArgumentException if the threshold isn't positive
+     */
+    public void setFailureThreshold(int failureThreshold) throws IllegalArgumentException {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("Failure threshold must be positive");
+        }
+        this.failureThreshold = failureThreshold;
+    }
+    
+    /**
+     * Set the time this breaker stays open for before a trial operation.
+     *
+     * @param openDuration the open duration
+     * @param unit the unit of the duration
+     * @throws IllegalArgumentException if the duration is negative
+     */
+    public void setOpenDuration(long openDuration, @NonNull TimeUnit unit) throws IllegalArgumentException {
+        if (openDuration < 0L) {
+            throw new IllegalArgumentException("Open duration must not be negative");
+        }
+        this.openDuration = unit.toMillis(openDuration);
+    }
+    
+    /**
+     * Get the current state of this breaker.
+     *
+     * @return the state
+     */
+    @NonNull
+    public State getState() {
+        return state.get();
+    }
+    
+    /**
+     * Ask for permission to run an operation.
+     *
+     * @throws CircuitBreakerOpenException if this breaker is open
+     */
+    public void acquire() throws CircuitBreakerOpenException {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return;
+        }
+        // Let a single trial operation through once we've been open for long enough
+        if (current == State.OPEN && System.nanoTime() - openedAt >= TimeUnit.MILLISECONDS.toNanos(openDuration)
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            return;
+        }
+        throw new CircuitBreakerOpenException("Circuit breaker for " + name + " is open");
+    }
+    
+    /**
+     * Record that an operation reached the database.
+     * <p>
+     * This includes operations the database
+     * answered with an error reply.
+     * </p>
+     */
+    public void onSuccess() {
+        failures.set(0);
+        state.set(State.CLOSED);
+    }
+    
+    /**
+     * Record that an operation failed with a transient error.
+     */
+    public void onFailure() {
+        if (state.get() == State.HALF_OPEN || failures.incrementAndGet() >= failureThreshold) { // The trial failed, or too many failures
+            open();
+        }
+    }
+    
+    /**
+     * Record that an operation ended without telling
+     * us anything about the database, such as when it
+     * failed locally before a reply was received.
+     * <p>
+     * If the operation was the trial, the breaker goes
+     * back to open, letting the next operation be the
+     * trial right away.
+     * </p>
+     */
+    public void release() {
+        state.compareAndSet(State.HALF_OPEN, State.OPEN);
+    }
+    
+    /**
+     * Close this breaker, allowing operations again.
+     */
+    public void reset() {
+        onSuccess();
+    }
+    
+    /**
+     * Open this breaker, rejecting operations.
+     */
+    private void open() {
+        openedAt = System.nanoTime();
+        failures.set(0);
+        state.set(State.OPEN);
+    }
+    
+    /**
+     * The state of a {@link CircuitBreaker}.
+     */
+    public enum State {
+        /**
+         * Operations are allowed.
+         */
+        CLOSED,
+        
+        /**
+         * Operations are rejected.
+         */
+        OPEN,
+        
+        /**
+         * A single trial operation is running,
+         * other operations are rejected.
+         */
+        HALF_OPEN
+    }
+}
\ No newline at end of file
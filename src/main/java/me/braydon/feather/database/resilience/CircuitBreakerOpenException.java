@@ -0,0 +1,20 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database.resilience;
+
+import lombok.NonNull;
+
+/**
+ * Thrown when an operation is rejected
+ * because a {@link CircuitBreaker} is open.
+ *
+ * @author Braydon
+ */
+public final class CircuitBreakerOpenException extends IllegalStateException {
+    public CircuitBreakerOpenException(@NonNull String message) {
+        super(message);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database.resilience;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How a failed repository operation is retried.
+ * <p>
+ * Only idempotent operations that failed with a transient
+ * error, such as a dropped connection or a timeout, are
+ * retried. Between attempts the caller backs off for a
+ * random time of up to the exponentially growing backoff,
+ * so that callers failing together don't retry together.
+ * </p>
+ *
+ * @author Braydon
+ * @see me.braydon.feather.database.Repository#setRetryPolicy(RetryPolicy) for using a policy
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE) @Getter @ToString
+public final class RetryPolicy {
+    /**
+     * A policy that never retries.
+     */
+    public static final RetryPolicy NONE = new RetryPolicy(1, 0L, 0L);
+    
+    /**
+     * The maximum amount of attempts, including the first.
+     */
+    private final int maxAttempts;
+    
+    /**
+     * The backoff before the first retry, in milliseconds.
+     */
+    private final long initialBackoff;
+    
+    /**
+     * The maximum backoff between retries, in milliseconds.
+     */
+    private final long maxBackoff;
+    
+    /**
+     * Create a policy retrying with an exponential backoff.
+     *
+     * @param maxAttempts the maximum amount of attempts, including the first
+     * @param initialBackoff the backoff before the first retry
+     * @param maxBackoff the maximum backoff between retries
+     * @param unit the unit of the backoffs
+     * @return the policy
+     * @throws IllegalArgumentException if the attempts aren't positive or a backoff is negative
+     */
+    @NonNull
+    public static RetryPolicy exponential(int maxAttempts, long initialBackoff, long maxBackoff, @NonNull TimeUnit unit) throws IllegalArgumentException {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Max attempts must be positive");
+        }
+        if (initialBackoff < 0L || maxBackoff < initialBackoff) {
+            throw new IllegalArgumentException("Backoffs must be positive, with the max backoff at least the initial backoff");
+        }
+        return new RetryPolicy(maxAttempts, unit.toMillis(initialBackoff), unit.toMillis(maxBackoff));
+    }
+    
+    /**
+     * Get the time to back off for before the given retry.
+     *
+     * @param retry the retry, starting at 1
+     * @return the backoff, in milliseconds
+     */
+    public long getBackoff(int retry) {
+        long backoff = initialBackoff << Math.min(retry - 1, 30); // Double the backoff for every retry
+        if (backoff < 0L || backoff > maxBackoff) { // Overflowed or past the cap
+            backoff = maxBackoff;
+        }
+        return backoff == 0L ? 0L : ThreadLocalRandom.current().nextLong(backoff + 1L); // Full jitter
+    }
+}
\ No newline at end of file
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.metrics;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values,
+ * such as latencies in nanoseconds.
+ * <p>
+ * Like HdrHistogram, values are counted in log-linear
+ * buckets: values below {@value #SUB_BUCKETS} are exact,
+ * larger values share a bucket with values within
+ * roughly 3% of them. This keeps the histogram at a
+ * fixed, small size while covering the full range of
+ * a long, so recording never allocates.
+ * </p>
+ *
+ * @author Braydon
+ */
+@ThreadSafe
+public final class Histogram {
+    /**
+     * The bits of precision kept for each value.
+     */
+    private static final int PRECISION_BITS = 6;
+    
+    /**
+     * The amount of buckets each power of two is split into, doubled.
+     */
+    private static final int SUB_BUCKETS = 1 << PRECISION_BITS;
+    
+    /**
+     * Half the amount of sub buckets.
+     */
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    
+    /**
+     * The counts of each bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKETS + (64 - PRECISION_BITS) * HALF_SUB_BUCKETS);
+    
+    /**
+     * The amount of recorded values.
+     */
+    private final LongAdder count = new LongAdder();
+    
+    /**
+     * The sum of the recorded values.
+     */
+    private final LongAdder sum = new LongAdder();
+    
+    /**
+     * The smallest recorded value.
+     */
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    
+    /**
+     * The largest recorded value.
+     */
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+    
+    /**
+     * Record the given value.
+     *
+     * @param value the value to record, negative values are recorded as 0
+     */
+    public void record(long value) {
+        value = Math.max(0L, value);
+        counts.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+        min.accumulateAndGet(value, Math::min);
+        max.accumulateAndGet(value, Math::max);
+    }
+    
+    /**
+     * Get the amount of recorded values.
+     *
+     * @return the amount of values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+    
+    /**
+     * Get the sum of the recorded values.
+     *
+     * @return the sum
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+    
+    /**
+     * Get the smallest recorded value.
+     *
+     * @return the smallest value, 0 if none
+     */
+    public long getMin() {
+        return getCount() == 0L ? 0L : min.get();
+    }
+    
+    /**
+     * Get the largest recorded value.
+     *
+     * @return the largest value, 0 if none
+     */
+    public long getMax() {
+        return getCount() == 0L ? 0L : max.get();
+    }
+    
+    /**
+     * Get the mean of the recorded values.
+     *
+     * @return the mean, 0 if none
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0L ? 0D : (double) getSum() / count;
+    }
+    
+    /**
+     * Get the value at the given percentile.
+     * <p>
+     * The returned value is the largest value within the
+     * bucket the percentile falls in, capped at the
+     * largest recorded value.
+     * </p>
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the value at the percentile, 0 if none
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0L) { // Nothing recorded
+            return 0L;
+        }
+        long target = Math.max(1L, (long) Math.ceil(Math.min(100D, Math.max(0D, percentile)) / 100D * count));
+        long seen = 0L;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), getMax());
+            }
+        }
+        return getMax(); // Values were recorded while we were iterating
+    }
+    
+    /**
+     * Get the index of the bucket for the given value.
+     *
+     * @param value the value
+     * @return the bucket index
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) { // Small values are exact
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - PRECISION_BITS + 1;
+        int top = (int) (value >>> shift); // The top bits of the value, between half and all sub buckets
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (top - HALF_SUB_BUCKETS);
+    }
+    
+    /**
+     * Get the largest value within the bucket at the given index.
+     *
+     * @param index the bucket index
+     * @return the largest value
+     */
+    private static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) { // Small values are exact
+            return index;
+        }
+        int offset = index - SUB_BUCKETS;
+        int shift = offset / HALF_SUB_BUCKETS + 1;
+        long top = offset % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        long highest = ((top + 1L) << shift) - 1L;
+        return highest < 0L ? Long.MAX_VALUE : highest; // The last bucket overflows
+    }
+}
\ No newline at end of file
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.metrics;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link MetricsRecorder} that keeps every
+ * metric in memory, ready to be scraped.
+ * <p>
+ * Metrics are keyed by repository tag (or database
+ * name) and operation or direction. The recorded
+ * metrics can be read directly, or rendered in the
+ * Prometheus text format with {@link #scrape()}.
+ * </p>
+ *
+ * @author Braydon
+ */
+@ThreadSafe
+public final class InMemoryMetricsRegistry implements MetricsRecorder {
+    /**
+     * The percentiles rendered when scraping.
+     */
+    private static final double[] PERCENTILES = { 50D, 90D, 99D, 99.9D };
+    
+    /**
+     * The operation metrics, keyed by repository and operation.
+     */
+    private final Map<Key, OperationMetrics> operations = new ConcurrentHashMap<>();
+    
+    /**
+     * The batch sizes, keyed by repository and operation.
+     */
+    private final Map<Key, Histogram> batchSizes = new ConcurrentHashMap<>();
+    
+    /**
+     * The total bytes, keyed by repository and direction.
+     */
+    private final Map<Key, LongAdder> bytes = new ConcurrentHashMap<>();
+    
+    /**
+     * The mapping times, keyed by repository and direction.
+     */
+    private final Map<Key, Histogram> mappings = new ConcurrentHashMap<>();
+    
+    /**
+     * The database latencies, keyed by database name.
+     */
+    private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+    
+    @Override
+    public void recordOperation(@NonNull String repository, @NonNull String operation, long nanos, boolean success) {
+        OperationMetrics metrics = operations.computeIfAbsent(new Key(repository, operation), key -> new OperationMetrics());
+        metrics.latency.record(nanos);
+        if (!success) {
+            metrics.errors.increment();
+        }
+    }
+    
+    @Override
+    public void recordBatchSize(@NonNull String repository, @NonNull String operation, int size) {
+        batchSizes.computeIfAbsent(new Key(repository, operation), key -> new Histogram()).record(size);
+    }
+    
+    @Override
+    public void recordBytes(@NonNull String repository, @NonNull String direction, long bytes) {
+        this.bytes.computeIfAbsent(new Key(repository, direction), key -> new LongAdder()).add(bytes);
+    }
+    
+    @Override
+    public void recordMapping(@NonNull String repository, @NonNull String direction, long nanos) {
+        mappings.computeIfAbsent(new Key(repository, direction), key -> new Histogram()).record(nanos);
+    }
+    
+    @Override
+    public void recordLatency(@NonNull String database, long nanos) {
+        latencies.computeIfAbsent(database, key -> new Histogram()).record(nanos);
+    }
+    
+    /**
+     * Get the recorded operation metrics.
+     *
+     * @return the operation metrics, keyed by repository and operation
+     */
+    @NonNull
+    public Map<Key, OperationMetrics> getOperations() {
+        return Collections.unmodifiableMap(operations);
+    }
+    
+    /**
+     * Get the recorded batch sizes.
+     *
+     * @return the batch sizes, keyed by repository and operation
+     */
+    @NonNull
+    public Map<Key, Histogram> getBatchSizes() {
+        return Collections.unmodifiableMap(batchSizes);
+    }
+    
+    /**
+     * Get the total amount of bytes written and read.
+     *
+     * @param repository the tag of the repository
+     * @param direction {@code write} or {@code read}
+     * @return the total amount of bytes
+     */
+    public long getBytes(@NonNull String repository, @NonNull String direction) {
+        LongAdder adder = bytes.get(new Key(repository, direction));
+        return adder == null ? 0L : adder.sum();
+    }
+    
+    /**
+     * Get the recorded mapping times.
+     *
+     * @return the mapping times, keyed by repository and direction
+     */
+    @NonNull
+    public Map<Key, Histogram> getMappings() {
+        return Collections.unmodifiableMap(mappings);
+    }
+    
+    /**
+     * Get the recorded database latencies.
+     *
+     * @return the latencies, keyed by database name
+     */
+    @NonNull
+    public Map<String, Histogram> getLatencies() {
+        return Collections.unmodifiableMap(latencies);
+    }
+    
+    /**
+     * Clear every recorded metric.
+     */
+    public void reset() {
+        operations.clear();
+        batchSizes.clear();
+        bytes.clear();
+        mappings.clear();
+        latencies.clear();
+    }
+    
+    /**
+     * Render every recorded metric in the Prometheus text format.
+     *
+     * @return the rendered metrics
+     */
+    @NonNull
+    public String scrape() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("# TYPE feather_operation_errors_total counter\n");
+        for (Map.Entry<Key, OperationMetrics> entry : operations.entrySet()) {
+            String labels = entry.getKey().toLabels("operation");
+            builder.append("feather_operation_errors_total{").append(labels).append("} ").append(entry.getValue().getErrors()).append('\n');
+        }
+        builder.append("# TYPE feather_operation_nanoseconds summary\n");
+        for (Map.Entry<Key, OperationMetrics> entry : operations.entrySet()) {
+            appendSummary(builder, "feather_operation_nanoseconds", entry.getKey().toLabels("operation"), entry.getValue().getLatency());
+        }
+        builder.append("# TYPE feather_batch_size summary\n");
+        for (Map.Entry<Key, Histogram> entry : batchSizes.entrySet()) {
+            appendSummary(builder, "feather_batch_size", entry.getKey().toLabels("operation"), entry.getValue());
+        }
+        builder.append("# TYPE feather_bytes_total counter\n");
+        for (Map.Entry<Key, LongAdder> entry : bytes.entrySet()) {
+            builder.append("feather_bytes_total{").append(entry.getKey().toLabels("direction")).append("} ").append(entry.getValue().sum()).append('\n');
+        }
+        builder.append("# TYPE feather_mapping_nanoseconds summary\n");
+        for (Map.Entry<Key, Histogram> entry : mappings.entrySet()) {
+            appendSummary(builder, "feather_mapping_nanoseconds", entry.getKey().toLabels("direction"), entry.getValue());
+        }
+        builder.append("# TYPE feather_database_latency_nanoseconds summary\n");
+        for (Map.Entry<String, Histogram> entry : latencies.entrySet()) {
+            appendSummary(builder, "feather_database_latency_nanoseconds", "database=\"" + escape(entry.getKey()) + "\"", entry.getValue());
+        }
+        return builder.toString();
+    }
+    
+    /**
+     * Render the given histogram as a Prometheus summary.
+     *
+     * @param builder the builder to render to
+     * @param name the name of the metric
+     * @param labels the rendered labels
+     * @param histogram the histogram to render
+     */
+    private static void appendSummary(@NonNull StringBuilder builder, @NonNull String name, @NonNull String labels, @NonNull Histogram histogram) {
+        for (double percentile : PERCENTILES) {
+            String quantile = BigDecimal.valueOf(percentile).movePointLeft(2).stripTrailingZeros().toPlainString();
+            builder.append(name).append('{').append(labels).append(",quantile=\"").append(quantile).append("\"} ")
+                .append(histogram.getValueAtPercentile(percentile)).append('\n');
+        }
+        builder.append(name).append("_sum{").append(labels).append("} ").append(histogram.getSum()).append('\n');
+        builder.append(name).append("_count{").append(labels).append("} ").append(histogram.getCount()).append('\n');
+    }
+    
+    /**
+     * Escape the given Prometheus label value.
+     *
+     * @param value the value to escape
+     * @return the escaped value
+     */
+    @NonNull
+    private static String escape(@NonNull String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+    
+    /**
+     * The key of a metric.
+     */
+    @AllArgsConstructor @Getter @EqualsAndHashCode @ToString
+    public static final class Key {
+        /**
+         * The tag of the repository.
+         */
+        @NonNull private final String repository;
+        
+        /**
+         * The operation or direction.
+         */
+        @NonNull private final String name;
+        
+        /**
+         * Render this key as Prometheus labels.
+         *
+         * @param nameLabel the label to use for the name
+         * @return the rendered labels
+         */
+        @NonNull
+        private String toLabels(@NonNull String nameLabel) {
+            return "repository=\"" + escape(repository) + "\"," + nameLabel + "=\"" + escape(name) + "\"";
+        }
+    }
+    
+    /**
+     * The metrics of a repository operation.
+     */
+    @Getter @ToString
+    public static final class OperationMetrics {
+        /**
+         * The latencies of the operation, in nanoseconds.
+         * <p>
+         * The count of this histogram is the
+         * amount of times the operation ran.
+         * </p>
+         */
+        @NonNull private final Histogram latency = new Histogram();
+        
+        /**
+         * The amount of times the operation failed.
+         */
+        @Getter(AccessLevel.NONE) @NonNull private final LongAdder errors = new LongAdder();
+        
+        /**
+         * Get the amount of times the operation failed.
+         *
+         * @return the amount of failures
+         */
+        public long getErrors() {
+            return errors.sum();
+        }
+    }
+}
\ No newline at end of file
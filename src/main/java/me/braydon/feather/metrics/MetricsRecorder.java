@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.metrics;
+
+import lombok.NonNull;
+import me.braydon.feather.database.IDatabase;
+import me.braydon.feather.database.Repository;
+
+/**
+ * Receives the metrics recorded by {@link Repository}'s
+ * and {@link IDatabase}'s.
+ * <p>
+ * Every method does nothing by default, so an
+ * implementation only has to override the metrics
+ * it's interested in. Implementations are called on
+ * the hot path and from many threads at once, so they
+ * must be thread-safe and cheap.
+ * </p>
+ *
+ * @author Braydon
+ * @see InMemoryMetricsRegistry for a scrapeable implementation
+ */
+public interface MetricsRecorder {
+    /**
+     * A recorder that discards everything.
+     */
+    MetricsRecorder NOOP = new MetricsRecorder() { };
+    
+    /**
+     * Record a completed repository operation.
+     *
+     * @param repository the tag of the repository
+     * @param operation the name of the operation, e.g. {@code find}
+     * @param nanos the time the operation took, in nanoseconds
+     * @param success whether the operation completed without throwing
+     */
+    default void recordOperation(@NonNull String repository, @NonNull String operation, long nanos, boolean success) { }
+    
+    /**
+     * Record the amount of entities handled by a batch operation.
+     *
+     * @param repository the tag of the repository
+     * @param operation the name of the operation, e.g. {@code saveAll}
+     * @param size the amount of entities
+     */
+    default void recordBatchSize(@NonNull String repository, @NonNull String operation, int size) { }
+    
+    /**
+     * Record the size of entities written to or read from a database.
+     *
+     * @param repository the tag of the repository
+     * @param direction {@code write} or {@code read}
+     * @param bytes the amount of bytes
+     */
+    default void recordBytes(@NonNull String repository, @NonNull String direction, long bytes) { }
+    
+    /**
+     * Record the time spent mapping an entity.
+     *
+     * @param repository the tag of the repository
+     * @param direction {@code write} when mapping to the database, {@code read} when mapping from it
+     * @param nanos the time spent, in nanoseconds
+     */
+    default void recordMapping(@NonNull String repository, @NonNull String direction, long nanos) { }
+    
+    /**
+     * Record a measured round-trip latency to a database.
+     *
+     * @param database the name of the database
+     * @param nanos the latency, in nanoseconds
+     */
+    default void recordLatency(@NonNull String database, long nanos) { }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.serialization;
+
+import com.google.gson.Gson;
+import lombok.NonNull;
+import me.braydon.feather.FeatherSettings;
+
+import java.lang.reflect.Type;
+
+/**
+ * A {@link Serializer} that serializes
+ * values as JSON using {@link Gson}.
+ *
+ * @author Braydon
+ * @see FeatherSettings#getGson() for the Gson instance used
+ */
+public class GsonSerializer implements Serializer {
+    /**
+     * Serialize the given value.
+     *
+     * @param value the value to serialize
+     * @return the serialized value
+     */
+    @Override @NonNull
+    public String serialize(Object value) {
+        return FeatherSettings.getGson().toJson(value);
+    }
+    
+    /**
+     * Deserialize the given value.
+     *
+     * @param serialized the serialized value
+     * @param type the type to deserialize to
+     * @return the deserialized value
+     */
+    @Override
+    public Object deserialize(@NonNull String serialized, @NonNull Type type) {
+        return FeatherSettings.getGson().fromJson(serialized, type);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.serialization;
+
+import lombok.NonNull;
+import me.braydon.feather.FeatherSettings;
+import me.braydon.feather.annotation.Serializable;
+
+import java.lang.reflect.Type;
+
+/**
+ * Handles serialization of {@link Serializable} fields.
+ *
+ * @author Braydon
+ * @see FeatherSettings#setSerializer(Serializer) for changing the serializer
+ */
+public interface Serializer {
+    /**
+     * Serialize the given value.
+     *
+     * @param value the value to serialize
+     * @return the serialized value
+     */
+    @NonNull String serialize(Object value);
+    
+    /**
+     * Deserialize the given value.
+     *
+     * @param serialized the serialized value
+     * @param type the type to deserialize to
+     * @return the deserialized value
+     */
+    Object deserialize(@NonNull String serialized, @NonNull Type type);
+}
\ No newline at end of file
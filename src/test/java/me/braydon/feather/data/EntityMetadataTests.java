@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.data;
+
+import me.braydon.feather.annotation.Field;
+import me.braydon.feather.annotation.Id;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link EntityMetadata}.
+ *
+ * @author Braydon
+ */
+public final class EntityMetadataTests {
+    @Test
+    void metadataIsCached() {
+        assertSame(EntityMetadata.of(Account.class), EntityMetadata.of(Account.class));
+    }
+    
+    @Test
+    void resolvesFieldsInDeclarationOrder() {
+        EntityMetadata<Account> metadata = EntityMetadata.of(Account.class);
+        assertEquals(3, metadata.getFields().size());
+        assertEquals("_id", metadata.getIdField().getKey());
+        assertEquals("username", metadata.getFields().get(1).getKey());
+        assertEquals("balance", metadata.getField("balance").getKey());
+        assertNull(metadata.getField("ignored"));
+    }
+    
+    @Test
+    void readsAndWritesStoredValues() {
+        EntityMetadata<Account> metadata = EntityMetadata.of(Account.class);
+        UUID uuid = UUID.randomUUID();
+        Account account = metadata.newInstance();
+        metadata.getIdField().write(account, uuid.toString());
+        metadata.getField("balance").write(account, null); // Primitives keep their default
+        
+        assertEquals(uuid, account.uuid);
+        assertEquals(0L, account.balance);
+        assertEquals(uuid.toString(), metadata.getIdField().read(account));
+    }
+    
+    @Test
+    void missingConstructorIsRejected() {
+        assertThrows(IllegalStateException.class, () -> EntityMetadata.of(NoConstructor.class).newInstance());
+    }
+    
+    private static final class Account {
+        @Id @Field private UUID uuid;
+        @Field private String username;
+        @Field private long balance;
+        private String ignored;
+    }
+    
+    private static final class NoConstructor {
+        @Field private String name;
+        
+        private NoConstructor(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.lettuce.core.RedisURI;
+import me.braydon.feather.annotation.Field;
+import me.braydon.feather.annotation.Id;
+import me.braydon.feather.database.impl.redis.Redis;
+import me.braydon.feather.database.impl.redis.RedisRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link CachingRepository}, in front
+ * of a repository on an embedded Redis server.
+ *
+ * @author Braydon
+ */
+public final class CachingRepositoryTests {
+    private static RedisServer server;
+    private static Redis redis;
+    
+    private RedisRepository<String, Account> delegate;
+    private CachingRepository<Redis, String, Account> repository;
+    
+    @BeforeAll
+    static void connect() throws IOException {
+        server = RedisServer.newRedisServer().start();
+        redis = new Redis();
+        redis.connect(RedisURI.create(server.getHost(), server.getBindPort()));
+    }
+    
+    @AfterAll
+    static void disconnect() throws IOException {
+        redis.close();
+        server.stop();
+    }
+    
+    @BeforeEach
+    void setup() {
+        redis.getBootstrap().sync().flushall();
+        delegate = redis.newRepository(Account.class, "accounts");
+        repository = new CachingRepository<>(delegate, 100L, 0L, TimeUnit.MINUTES);
+    }
+    
+    @Test
+    void findCachesFoundEntities() {
+        repository.save(new Account("a", 1));
+        Account account = repository.find("a");
+        
+        assertSame(account, repository.find("a"));
+        assertEquals(1L, repository.getCacheStats().hitCount());
+        assertNull(repository.find("missing"));
+        assertEquals(1L, repository.getCacheSize()); // Missing entities aren't cached
+    }
+    
+    @Test
+    void writesInvalidateTheirEntries() {
+        repository.save(new Account("a", 1));
+        repository.find("a");
+        repository.increment("a", "balance", 5L);
+        assertEquals(6, repository.find("a").balance);
+        
+        repository.save(new Account("a", 10));
+        assertEquals(10, repository.find("a").balance);
+        
+        repository.dropById("a");
+        assertNull(repository.find("a"));
+    }
+    
+    @Test
+    void findAllByIdOnlyLoadsMissingEntities() {
+        repository.saveAll(new Account("a", 1), new Account("b", 2));
+        Account cached = repository.find("a");
+        
+        Map<String, Account> found = repository.findAllById(Arrays.asList("a", "b", "c"));
+        assertEquals(2, found.size());
+        assertSame(cached, found.get("a"));
+        assertSame(found.get("b"), repository.find("b"));
+    }
+    
+    @Test
+    void loadsRacingAnInvalidationAreNotCached() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RedisRepository<String, Account> slow = new RedisRepository<String, Account>(redis, Account.class, "accounts") {
+            @Override
+            public Account find(String id) {
+                Account account = super.find(id);
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return account;
+            }
+        };
+        CachingRepository<Redis, String, Account> repository = new CachingRepository<>(slow, 100L, 0L, TimeUnit.MINUTES);
+        repository.save(new Account("a", 1));
+        
+        CompletableFuture<Account> stale = CompletableFuture.supplyAsync(() -> repository.find("a"));
+        assertTrue(loading.await(5L, TimeUnit.SECONDS));
+        repository.save(new Account("a", 2)); // Saved while the load is in flight
+        release.countDown();
+        assertEquals(1, stale.get(5L, TimeUnit.SECONDS).balance);
+        
+        assertEquals(2, repository.find("a").balance);
+    }
+    
+    @Test
+    void loadFailuresAreUnwrapped() {
+        RedisRepository<String, Account> failing = new RedisRepository<String, Account>(redis, Account.class, "accounts") {
+            @Override
+            public Account find(String id) {
+                throw new IllegalStateException("Unavailable");
+            }
+        };
+        CachingRepository<Redis, String, Account> repository = new CachingRepository<>(failing, 100L, 0L, TimeUnit.MINUTES);
+        assertThrows(IllegalStateException.class, () -> repository.find("a"));
+    }
+    
+    @Test
+    void attachedBusesInvalidateEntries() {
+        StubChangeBus bus = new StubChangeBus();
+        repository.attach(bus, "accounts");
+        repository.saveAll(new Account("a", 1), new Account("b", 2));
+        assertEquals(Arrays.asList("a", "b"), bus.published);
+        repository.find("a");
+        repository.find("b");
+        
+        bus.listener.accept(Collections.singletonList("a")); // Changed on another node
+        assertEquals(1L, repository.getCacheSize());
+        bus.missed.run(); // Changes may have been missed
+        assertEquals(0L, repository.getCacheSize());
+        
+        repository.detach();
+        assertTrue(bus.closed);
+        repository.save(new Account("a", 3));
+        assertEquals(2, bus.published.size()); // No longer published
+    }
+    
+    static final class StubChangeBus implements ChangeBus {
+        private final List<String> published = new ArrayList<>();
+        private Consumer<Collection<String>> listener;
+        private Runnable missed;
+        private boolean closed;
+        
+        @Override
+        public void publish(String channel, Collection<String> ids) {
+            published.addAll(ids);
+        }
+        
+        @Override
+        public Subscription subscribe(String channel, Consumer<Collection<String>> listener, Runnable missed) {
+            this.listener = listener;
+            this.missed = missed;
+            return () -> closed = true;
+        }
+    }
+    
+    static final class Account {
+        @Id @Field String id;
+        @Field int balance;
+        
+        Account() { }
+        
+        Account(String id, int balance) {
+            this.id = id;
+            this.balance = balance;
+        }
+    }
+}
\ No newline at end of file
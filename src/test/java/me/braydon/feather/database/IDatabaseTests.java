@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database;
+
+import me.braydon.feather.metrics.InMemoryMetricsRegistry;
+import me.braydon.feather.metrics.MetricsRecorder;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the defaults of {@link IDatabase}, as
+ * seen by databases implemented outside this library.
+ *
+ * @author Braydon
+ */
+public final class IDatabaseTests {
+    @Test
+    void optionalFeaturesDefaultToOff() {
+        IDatabase<Object, String> database = new MinimalDatabase();
+        assertSame(MetricsRecorder.NOOP, database.getMetrics());
+        database.setMetrics(new InMemoryMetricsRegistry()); // Ignored, nothing is recorded
+        assertSame(MetricsRecorder.NOOP, database.getMetrics());
+        assertNull(database.getHealthMonitor());
+        assertNull(database.getCircuitBreaker());
+    }
+    
+    /**
+     * A database implementing only the required methods.
+     */
+    static final class MinimalDatabase implements IDatabase<Object, String> {
+        private boolean connected;
+        
+        @Override
+        public String getName() {
+            return "Minimal";
+        }
+        
+        @Override
+        public void connect(String credentials) {
+            connected = true;
+        }
+        
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+        
+        @Override
+        public long getLatency() {
+            return -1L;
+        }
+        
+        @Override
+        public Object getBootstrap() {
+            return null;
+        }
+        
+        @Override
+        public void close() {
+            connected = false;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ParallelMapping}.
+ *
+ * @author Braydon
+ */
+public final class ParallelMappingTests {
+    private ExecutorService executor;
+    
+    @BeforeEach
+    void setup() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+    
+    @AfterEach
+    void cleanup() {
+        executor.shutdownNow();
+    }
+    
+    @Test
+    void keepsTheFetchOrder() {
+        List<Integer> rows = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        List<Integer> entities = ParallelMapping.of(executor, 8, true).map(rows.iterator(), row -> {
+            sleep(row % 3); // Finish out of order
+            return row * 2;
+        });
+        assertEquals(rows.stream().map(row -> row * 2).collect(Collectors.toList()), entities);
+    }
+    
+    @Test
+    void unorderedMapsEveryRow() {
+        List<Integer> entities = new ArrayList<>(ParallelMapping.of(executor, 8, false).map(IntStream.range(0, 100).iterator(), row -> row));
+        entities.sort(null);
+        assertEquals(IntStream.range(0, 100).boxed().collect(Collectors.toList()), entities);
+    }
+    
+    @Test
+    void skipsRowsMappedToNull() {
+        List<Integer> entities = ParallelMapping.of(executor, 2, true).map(Arrays.asList(1, 2, 3, 4).iterator(), row -> row % 2 == 0 ? row : null);
+        assertEquals(Arrays.asList(2, 4), entities);
+    }
+    
+    @Test
+    void boundsTheRowsInFlight() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        Iterator<Integer> rows = IntStream.range(0, 50).iterator();
+        ParallelMapping.of(executor, 3, true).map(rows, row -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            sleep(2L);
+            inFlight.decrementAndGet();
+            return row;
+        });
+        assertTrue(maxInFlight.get() <= 3, "Mapped " + maxInFlight.get() + " rows at once");
+    }
+    
+    @Test
+    void rethrowsMappingFailures() {
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> ParallelMapping.of(executor, 4, true).map(IntStream.range(0, 20).iterator(), row -> {
+            if (row == 5) {
+                throw new IllegalStateException("Bad row");
+            }
+            return row;
+        }));
+        assertEquals("Bad row", ex.getMessage());
+    }
+    
+    @Test
+    void rejectsNonPositiveMaxInFlight() {
+        assertThrows(IllegalArgumentException.class, () -> ParallelMapping.of(executor, 0, true));
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
\ No newline at end of file
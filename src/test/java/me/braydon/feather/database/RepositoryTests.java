@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the shared behavior of {@link Repository}.
+ *
+ * @author Braydon
+ */
+public final class RepositoryTests {
+    @Test
+    void compareAndSetRetriesUntilSet() {
+        AtomicInteger attempts = new AtomicInteger();
+        Repository.compareAndSet("Field", () -> attempts.incrementAndGet() == 3);
+        assertEquals(3, attempts.get());
+    }
+    
+    @Test
+    void compareAndSetGivesUp() {
+        AtomicInteger attempts = new AtomicInteger();
+        assertThrows(ConcurrentModificationException.class, () -> Repository.compareAndSet("Field", () -> {
+            attempts.incrementAndGet();
+            return false;
+        }));
+        assertEquals(Repository.MAX_COMPARE_AND_SET_ATTEMPTS, attempts.get());
+    }
+}
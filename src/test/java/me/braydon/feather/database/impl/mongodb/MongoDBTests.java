@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database.impl.mongodb;
+
+import com.mongodb.ConnectionString;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import me.braydon.feather.annotation.Field;
+import me.braydon.feather.annotation.Id;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link MongoDB} connection
+ * lifecycle, against an embedded MongoDB server.
+ *
+ * @author Braydon
+ */
+public final class MongoDBTests {
+    @Test
+    void staysConnectedWhileUnhealthy() throws InterruptedException {
+        MongoServer server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        try (MongoDB mongo = new MongoDB()) {
+            mongo.getHealthMonitor().setInterval(50L, TimeUnit.MILLISECONDS);
+            mongo.getHealthMonitor().setTimeout(100L, TimeUnit.MILLISECONDS);
+            mongo.getHealthMonitor().setFailureThreshold(1);
+            mongo.connect(new ConnectionString("mongodb://" + address.getHostString() + ":" + address.getPort() + "/test?serverSelectionTimeoutMS=200"));
+            assertTrue(mongo.isConnected());
+            
+            server.shutdownNow(); // The server goes away, but we're still connected
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10L);
+            while (mongo.getHealthMonitor().isHealthy() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(25L);
+            }
+            assertFalse(mongo.getHealthMonitor().isHealthy());
+            assertTrue(mongo.isConnected());
+            assertNotNull(mongo.newRepository("entities", Entity.class));
+        } finally {
+            server.shutdownNow();
+        }
+    }
+    
+    static final class Entity {
+        @Id @Field String id;
+    }
+}
\ No newline at end of file
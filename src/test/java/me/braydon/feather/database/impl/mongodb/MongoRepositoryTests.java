@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database.impl.mongodb;
+
+import com.mongodb.ConnectionString;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import me.braydon.feather.annotation.Field;
+import me.braydon.feather.annotation.Id;
+import me.braydon.feather.database.impl.mongodb.annotation.Index;
+import me.braydon.feather.database.query.Query;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link MongoRepository}, against an embedded MongoDB server.
+ *
+ * @author Braydon
+ */
+public final class MongoRepositoryTests {
+    private static MongoServer server;
+    private static MongoDB mongo;
+    
+    private MongoRepository<UUID, Player> repository;
+    
+    @BeforeAll
+    static void connect() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        mongo = new MongoDB();
+        mongo.connect(new ConnectionString("mongodb://" + address.getHostString() + ":" + address.getPort() + "/test"));
+    }
+    
+    @AfterAll
+    static void disconnect() {
+        mongo.close();
+        server.shutdownNow();
+    }
+    
+    @BeforeEach
+    void setup() {
+        mongo.getBootstrap().getDatabase("test").drop();
+        repository = mongo.newRepository("players", Player.class);
+    }
+    
+    @Test
+    void uuidIdsMatchTheirStoredForm() {
+        Player alice = new Player(UUID.randomUUID(), "Alice", 10);
+        Player bob = new Player(UUID.randomUUID(), "Bob", 20);
+        repository.saveAll(alice, bob);
+        
+        assertEquals("Alice", repository.find(alice.id).name);
+        assertEquals(alice.id, repository.find(alice.id).id);
+        Map<UUID, Player> found = repository.findAllById(Arrays.asList(alice.id, bob.id, UUID.randomUUID()));
+        assertEquals(2, found.size());
+        assertEquals("Bob", found.get(bob.id).name);
+        
+        repository.dropById(alice.id);
+        assertNull(repository.find(alice.id));
+        repository.dropAllById(Collections.singletonList(bob.id));
+        assertEquals(0L, repository.count());
+    }
+    
+    @Test
+    void numericIdsMatchTheirStoredForm() {
+        MongoRepository<Long, Ticket> tickets = mongo.newRepository("tickets", Ticket.class);
+        tickets.saveAll(new Ticket(1L, "First"), new Ticket(2L, "Second"));
+        
+        assertEquals("First", tickets.find(1L).subject);
+        assertEquals(2, tickets.findAllById(Arrays.asList(1L, 2L)).size());
+        tickets.dropById(1L);
+        assertNull(tickets.find(1L));
+        tickets.dropAllById(Collections.singletonList(2L));
+        assertEquals(0L, tickets.count());
+    }
+    
+    @Test
+    void projectionsKeepTheId() {
+        MongoRepository<String, Coupon> coupons = mongo.newRepository("coupons", Coupon.class);
+        coupons.save(new Coupon("SPRING", 15));
+        
+        List<Coupon> found = coupons.findWhere(new Query().select("discount"));
+        assertEquals(1, found.size());
+        assertEquals("SPRING", found.get(0).code);
+        assertEquals(15, found.get(0).discount);
+    }
+    
+    @Test
+    void compoundIndexesCantExpire() {
+        assertThrows(IllegalStateException.class, () -> mongo.newRepository("sessions", Session.class));
+        assertFalse(mongo.getBootstrap().getDatabase("test").getCollection("sessions").listIndexes().iterator().hasNext());
+    }
+    
+    @Test
+    void incrementsCantOverflowTheField() {
+        Player alice = new Player(UUID.randomUUID(), "Alice", Integer.MAX_VALUE - 1);
+        repository.save(alice);
+        
+        assertThrows(IllegalArgumentException.class, () -> repository.increment(alice.id, "level", 5L));
+        assertEquals(Integer.MAX_VALUE - 1, repository.find(alice.id).level);
+        assertEquals(Integer.MAX_VALUE, repository.increment(alice.id, "level", 1L));
+        assertEquals(Integer.MAX_VALUE, repository.find(alice.id).level);
+        assertEquals(Integer.MAX_VALUE - 4L, repository.increment(alice.id, "level", -4L));
+        
+        UUID created = UUID.randomUUID();
+        assertEquals(3L, repository.increment(created, "level", 3L)); // Missing entities are created
+        assertEquals(3, repository.find(created).level);
+    }
+    
+    static final class Player {
+        @Id @Field UUID id;
+        @Field String name;
+        @Field int level;
+        
+        Player() { }
+        
+        Player(UUID id, String name, int level) {
+            this.id = id;
+            this.name = name;
+            this.level = level;
+        }
+    }
+    
+    static final class Ticket {
+        @Id @Field long id;
+        @Field String subject;
+        
+        Ticket() { }
+        
+        Ticket(long id, String subject) {
+            this.id = id;
+            this.subject = subject;
+        }
+    }
+    
+    static final class Coupon {
+        @Id(key = "code") @Field String code;
+        @Field int discount;
+        
+        Coupon() { }
+        
+        Coupon(String code, int discount) {
+            this.code = code;
+            this.discount = discount;
+        }
+    }
+    
+    static final class Session {
+        @Id @Field String id;
+        @Field @Index(type = Index.Type.ASCENDING, name = "owner_created") String owner;
+        @Field @Index(type = Index.Type.ASCENDING, name = "owner_created", expireAfterSeconds = 60L) Date created;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database.impl.redis;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.lettuce.core.RedisURI;
+import me.braydon.feather.database.ChangeBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link RedisChangeBus}, with two
+ * nodes sharing an embedded Redis server.
+ *
+ * @author Braydon
+ */
+public final class RedisChangeBusTests {
+    private RedisServer server;
+    private Redis redis;
+    private RedisChangeBus first;
+    private RedisChangeBus second;
+    
+    @BeforeEach
+    void setup() throws IOException {
+        server = RedisServer.newRedisServer().start();
+        redis = new Redis();
+        redis.connect(RedisURI.create(server.getHost(), server.getBindPort()));
+        first = new RedisChangeBus(redis);
+        second = new RedisChangeBus(redis);
+    }
+    
+    @AfterEach
+    void teardown() throws IOException {
+        first.close();
+        second.close();
+        redis.close();
+        server.stop();
+    }
+    
+    @Test
+    void changesReachOtherNodes() throws InterruptedException {
+        BlockingQueue<Collection<String>> received = new LinkedBlockingQueue<>();
+        BlockingQueue<Collection<String>> own = new LinkedBlockingQueue<>();
+        second.subscribe("accounts", received::add, () -> { });
+        first.subscribe("accounts", own::add, () -> { });
+        
+        first.publish("accounts", Collections.singletonList("a"));
+        assertEquals(Collections.singletonList("a"), received.poll(5L, TimeUnit.SECONDS));
+        assertNull(own.poll(200L, TimeUnit.MILLISECONDS)); // We don't receive our own changes
+    }
+    
+    @Test
+    void closedSubscriptionsStopListening() throws InterruptedException {
+        BlockingQueue<Collection<String>> closed = new LinkedBlockingQueue<>();
+        BlockingQueue<Collection<String>> open = new LinkedBlockingQueue<>();
+        ChangeBus.Subscription subscription = second.subscribe("accounts", closed::add, () -> { });
+        second.subscribe("accounts", open::add, () -> { });
+        subscription.close();
+        subscription.close(); // Closing twice has no effect
+        
+        first.publish("accounts", Collections.singletonList("a"));
+        assertEquals(Collections.singletonList("a"), open.poll(5L, TimeUnit.SECONDS));
+        assertNull(closed.poll(200L, TimeUnit.MILLISECONDS));
+    }
+    
+    @Test
+    void reconnectingRunsTheMissedCallbacks() throws IOException, InterruptedException {
+        CountDownLatch missed = new CountDownLatch(1);
+        BlockingQueue<Collection<String>> received = new LinkedBlockingQueue<>();
+        second.subscribe("accounts", received::add, missed::countDown);
+        
+        int port = server.getBindPort();
+        server.stop(); // Drop every connection, then come back on the same port
+        server = RedisServer.newRedisServer(port).start();
+        assertTrue(missed.await(30L, TimeUnit.SECONDS));
+        
+        first.publish("accounts", Collections.singletonList("a")); // Still subscribed after reconnecting
+        assertEquals(Collections.singletonList("a"), received.poll(5L, TimeUnit.SECONDS));
+    }
+}
\ No newline at end of file
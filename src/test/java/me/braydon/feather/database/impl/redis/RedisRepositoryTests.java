@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database.impl.redis;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.sync.RedisCommands;
+import lombok.NonNull;
+import me.braydon.feather.FeatherSettings;
+import me.braydon.feather.annotation.Field;
+import me.braydon.feather.annotation.Id;
+import me.braydon.feather.annotation.Serializable;
+import me.braydon.feather.database.resilience.CircuitBreaker;
+import me.braydon.feather.database.resilience.CircuitBreakerOpenException;
+import me.braydon.feather.database.resilience.RetryPolicy;
+import me.braydon.feather.serialization.GsonSerializer;
+import me.braydon.feather.serialization.Serializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link RedisRepository}, against an embedded Redis server.
+ *
+ * @author Braydon
+ */
+public final class RedisRepositoryTests {
+    private static RedisServer server;
+    private static Redis redis;
+    
+    private RedisRepository<String, Account> repository;
+    
+    @BeforeAll
+    static void connect() throws IOException {
+        server = RedisServer.newRedisServer().start();
+        redis = new Redis();
+        redis.connect(RedisURI.create(server.getHost(), server.getBindPort()));
+    }
+    
+    @AfterAll
+    static void disconnect() throws IOException {
+        redis.close();
+        server.stop();
+    }
+    
+    @BeforeEach
+    void setup() {
+        redis.getCircuitBreaker().reset();
+        redis.getCircuitBreaker().setOpenDuration(0L, TimeUnit.MILLISECONDS);
+        redis.getBootstrap().sync().flushall();
+        repository = redis.newRepository(Account.class, "accounts");
+    }
+    
+    @Test
+    void countIndexesExistingEntities() {
+        RedisCommands<String, String> commands = redis.getBootstrap().sync();
+        for (int i = 0; i < 3; i++) { // Entities written before the index existed
+            Map<String, String> hash = new HashMap<>();
+            hash.put("_id", "legacy-" + i);
+            hash.put("name", "Legacy " + i);
+            commands.hset("accounts:legacy-" + i, hash);
+        }
+        repository.save(new Account("new", "New", 0)); // A save creates the index, without the legacy entities
+        
+        assertEquals(4L, repository.count());
+        assertEquals(4L, redis.<String, Account>newRepository(Account.class, "accounts").async().count().join());
+    }
+    
+    @Test
+    void asyncCountBuildsTheIndex() {
+        RedisCommands<String, String> commands = redis.getBootstrap().sync();
+        for (int i = 0; i < 3; i++) { // Entities written before the index existed
+            commands.hset("accounts:legacy-" + i, "_id", "legacy-" + i);
+        }
+        commands.pexpire("accounts:legacy-0", TimeUnit.HOURS.toMillis(1L));
+        
+        assertEquals(3L, repository.async().count().join());
+        assertEquals(1L, commands.exists("accounts#indexed"));
+        assertTrue(commands.zscore("accounts#ids", "legacy-0") <= System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1L));
+        assertEquals((double) Long.MAX_VALUE, commands.zscore("accounts#ids", "legacy-1"));
+        assertTrue(commands.keys("accounts#ids#build*").isEmpty());
+        
+        RedisRepository<String, Account> fresh = redis.newRepository(Account.class, "accounts");
+        redis.getCircuitBreaker().setOpenDuration(1L, TimeUnit.HOURS);
+        openCircuitBreaker();
+        CompletionException rejected = assertThrows(CompletionException.class, () -> fresh.async().count().join());
+        assertInstanceOf(CircuitBreakerOpenException.class, rejected.getCause());
+    }
+    
+    @Test
+    void findMissingReturnsNull() {
+        assertNull(repository.find("missing"));
+        assertNull(repository.async().find("missing").join());
+        assertTrue(repository.findAllById(Collections.singletonList("missing")).isEmpty());
+    }
+    
+    @Test
+    void dropRemovesEntitiesAndIndex() {
+        Account first = new Account("a", "Alice", 1);
+        repository.saveAll(first, new Account("b", "Bob", 2), new Account("c", "Carol", 3), new Account("d", "Dave", 4));
+        repository.drop(first);
+        repository.dropById("b");
+        repository.dropAllById(Collections.singletonList("c"));
+        
+        assertNull(repository.find("a"));
+        assertNull(repository.find("b"));
+        assertNull(repository.find("c"));
+        assertEquals(1L, repository.count());
+        assertEquals("Dave", repository.findAll().get(0).name);
+    }
+    
+    @Test
+    void reindexKeepsTimesToLive() {
+        RedisCommands<String, String> commands = redis.getBootstrap().sync();
+        repository.setTimeToLive(1L, TimeUnit.HOURS);
+        repository.save(new Account("expiring", "Expiring", 0));
+        repository.setTimeToLive(0L, TimeUnit.MILLISECONDS);
+        repository.save(new Account("forever", "Forever", 0));
+        commands.zadd("accounts#ids", Double.MAX_VALUE, "stale"); // An id without an entity
+        repository.reindex();
+        
+        assertEquals(2L, commands.zcard("accounts#ids"));
+        assertNull(commands.zscore("accounts#ids", "stale"));
+        assertTrue(commands.zscore("accounts#ids", "expiring") <= System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1L));
+        assertEquals((double) Long.MAX_VALUE, commands.zscore("accounts#ids", "forever"));
+        assertTrue(commands.keys("accounts#ids#build*").isEmpty());
+        
+        repository.dropAll(repository.findAll().toArray(new Account[0]));
+        repository.reindex(); // No entities left, the index is removed
+        assertEquals(0L, commands.exists("accounts#ids"));
+        assertEquals(0L, repository.count());
+    }
+    
+    @Test
+    void fieldOperationsApplyTheTimeToLive() {
+        RedisCommands<String, String> commands = redis.getBootstrap().sync();
+        repository.setTimeToLive(1L, TimeUnit.HOURS);
+        repository.reindex(); // Mark the index as built, so counting doesn't rebuild it
+        for (String id : Arrays.asList("a", "b", "c")) {
+            commands.zadd("accounts#ids", 1D, id); // Left behind by an entity that has since expired
+        }
+        repository.increment("a", "balance", 1L);
+        assertTrue(repository.setIfAbsent("b", "name", "Bob"));
+        repository.push("c", "tags", "vip");
+        
+        for (String id : Arrays.asList("a", "b", "c")) {
+            assertTrue(commands.pttl("accounts:" + id) > 0L, id + " never expires");
+            assertTrue(commands.zscore("accounts#ids", id) > System.currentTimeMillis(), id + " is indexed as expired");
+        }
+        assertEquals(3L, repository.count());
+    }
+    
+    @Test
+    void numericFieldsRoundTrip() {
+        Account account = new Account("a", "Alice", 10);
+        account.rank = Rank.ADMIN;
+        account.score = 1.5D;
+        repository.save(account);
+        assertEquals(15L, repository.increment("a", "balance", 5L));
+        
+        Account found = repository.find("a");
+        assertEquals("Alice", found.name);
+        assertEquals(15, found.balance);
+        assertEquals(Rank.ADMIN, found.rank);
+        assertEquals(1.5D, found.score);
+    }
+    
+    @Test
+    void nullFieldsAreRemoved() {
+        Account account = new Account("a", "Alice", 10);
+        repository.save(account);
+        account.name = null;
+        repository.save(account);
+        
+        assertFalse(redis.getBootstrap().sync().hexists("accounts:a", "name"));
+        assertNull(repository.find("a").name);
+    }
+    
+    @Test
+    void trackedChangesRoundTrip() {
+        repository.setChangeTracking(true);
+        Account account = new Account("a", "Alice", 10);
+        account.score = 2.5D;
+        repository.save(account);
+        
+        Account loaded = repository.find("a");
+        loaded.balance += 5; // Written as an increment
+        loaded.rank = Rank.ADMIN;
+        loaded.name = null;
+        loaded.tags.add("vip");
+        repository.increment("a", "balance", 1L); // A concurrent increment isn't lost
+        repository.save(loaded);
+        
+        Account reloaded = repository.find("a");
+        assertEquals(16, reloaded.balance);
+        assertEquals(Rank.ADMIN, reloaded.rank);
+        assertNull(reloaded.name);
+        assertEquals(2.5D, reloaded.score);
+        assertEquals(Collections.singletonList("vip"), reloaded.tags);
+    }
+    
+    @Test
+    void incrementChecksTheFieldType() {
+        assertThrows(IllegalArgumentException.class, () -> repository.increment("a", "score", 1L)); // Not a whole number
+        assertThrows(IllegalArgumentException.class, () -> repository.increment("a", "balance", Integer.MAX_VALUE + 1L)); // Doesn't fit an int
+        assertEquals(-3L, repository.increment("a", "balance", -3L));
+    }
+    
+    @Test
+    void incrementsCantOverflowTheField() {
+        repository.save(new Account("a", "Alice", Integer.MAX_VALUE - 1));
+        
+        assertThrows(IllegalArgumentException.class, () -> repository.increment("a", "balance", 5L));
+        assertEquals(Integer.MAX_VALUE - 1, repository.find("a").balance); // The increment was undone
+        assertEquals(Integer.MAX_VALUE, repository.increment("a", "balance", 1L));
+        assertEquals(Integer.MAX_VALUE, repository.find("a").balance);
+    }
+    
+    @Test
+    void pushAppendsToSerializedCollections() {
+        repository.save(new Account("a", "Alice", 0));
+        repository.push("a", "tags", "first");
+        repository.push("a", "tags", "second");
+        repository.push("b", "tags", "created"); // Missing entities are created
+        
+        assertEquals(Arrays.asList("first", "second"), repository.find("a").tags);
+        assertEquals(Collections.singletonList("created"), repository.find("b").tags);
+        assertThrows(IllegalArgumentException.class, () -> repository.push("a", "name", "value"));
+    }
+    
+    @Test
+    void setIfAbsentOnlySetsMissingFields() {
+        repository.save(new Account("a", null, 0));
+        assertTrue(repository.setIfAbsent("a", "name", "Alice"));
+        assertFalse(repository.setIfAbsent("a", "name", "Bob"));
+        assertEquals("Alice", repository.find("a").name);
+    }
+    
+    @Test
+    void failedSavesWriteNothing() {
+        Serializer serializer = FeatherSettings.getSerializer();
+        FeatherSettings.setSerializer(new GsonSerializer() {
+            @Override @NonNull
+            public String serialize(Object value) {
+                if (value instanceof List && ((List<?>) value).contains("poison")) {
+                    throw new IllegalStateException("Unable to serialize");
+                }
+                return super.serialize(value);
+            }
+        });
+        try {
+            for (RedisRepository.WriteMode writeMode : RedisRepository.WriteMode.values()) {
+                repository.setWriteMode(writeMode);
+                Account poisoned = new Account("b", "Bob", 2);
+                poisoned.tags.add("poison");
+                assertThrows(IllegalStateException.class, () -> repository.saveAll(new Account("a", "Alice", 1), poisoned, new Account("c", "Carol", 3)));
+                assertTrue(redis.getBootstrap().sync().keys("*").isEmpty(), writeMode + " wrote a partial batch");
+                
+                repository.saveAll(new Account("d", "Dave", 4), new Account("e", "Eve", 5)); // The next batch is written alone
+                assertEquals(Arrays.asList("accounts#ids", "accounts:d", "accounts:e"), sortedKeys());
+                redis.getBootstrap().sync().flushall();
+            }
+        } finally {
+            FeatherSettings.setSerializer(serializer);
+        }
+    }
+    
+    @Test
+    void serverRepliesCloseTheBreaker() {
+        redis.getBootstrap().sync().hset("accounts:a", "balance", "not a number");
+        openCircuitBreaker();
+        
+        assertThrows(RedisCommandExecutionException.class, () -> repository.increment("a", "balance", 1L)); // The trial
+        assertEquals(CircuitBreaker.State.CLOSED, redis.getCircuitBreaker().getState());
+    }
+    
+    @Test
+    void localFailuresDontCloseTheBreaker() {
+        redis.getBootstrap().sync().hset("accounts:a", "rank", "UNKNOWN");
+        openCircuitBreaker();
+        
+        assertThrows(IllegalArgumentException.class, () -> repository.increment("a", "name", 1L)); // Rejected before the breaker
+        assertEquals(CircuitBreaker.State.OPEN, redis.getCircuitBreaker().getState());
+        assertThrows(IllegalArgumentException.class, () -> repository.find("a")); // The trial, failing to map the entity
+        assertEquals(CircuitBreaker.State.OPEN, redis.getCircuitBreaker().getState());
+        assertNull(repository.find("b")); // The next trial
+        assertEquals(CircuitBreaker.State.CLOSED, redis.getCircuitBreaker().getState());
+    }
+    
+    @Test
+    void asyncOperationsGoThroughTheBreaker() {
+        repository.save(new Account("a", "Alice", 0));
+        redis.getCircuitBreaker().setOpenDuration(1L, TimeUnit.HOURS);
+        openCircuitBreaker();
+        
+        CompletionException rejected = assertThrows(CompletionException.class, () -> repository.async().find("a").join());
+        assertInstanceOf(CircuitBreakerOpenException.class, rejected.getCause());
+        
+        redis.getCircuitBreaker().reset();
+        assertEquals("Alice", repository.async().find("a").join().name);
+    }
+    
+    @Test
+    void rejectedRetriesKeepTheFailure() {
+        redis.getCircuitBreaker().setOpenDuration(1L, TimeUnit.HOURS);
+        RedisRepository<String, Account> failing = new RedisRepository<String, Account>(redis, Account.class, "accounts") {
+            @Override
+            public long count() {
+                return record("count", true, (Supplier<Long>) () -> {
+                    openCircuitBreaker(); // The server went away during the attempt
+                    throw new RedisException("Connection reset");
+                });
+            }
+        };
+        failing.setRetryPolicy(RetryPolicy.exponential(3, 0L, 0L, TimeUnit.MILLISECONDS));
+        
+        CircuitBreakerOpenException rejected = assertThrows(CircuitBreakerOpenException.class, failing::count);
+        assertEquals(1, rejected.getSuppressed().length);
+        assertEquals("Connection reset", rejected.getSuppressed()[0].getMessage());
+    }
+    
+    /**
+     * Get the keys in our database, sorted.
+     *
+     * @return the sorted keys
+     */
+    private static List<String> sortedKeys() {
+        List<String> keys = redis.getBootstrap().sync().keys("*");
+        Collections.sort(keys);
+        return keys;
+    }
+    
+    /**
+     * Open the circuit breaker of our database.
+     */
+    private static void openCircuitBreaker() {
+        CircuitBreaker circuitBreaker = redis.getCircuitBreaker();
+        for (int i = 0; i < circuitBreaker.getFailureThreshold(); i++) {
+            circuitBreaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+    
+    enum Rank {
+        MEMBER, ADMIN
+    }
+    
+    static final class Account {
+        @Id @Field String id;
+        @Field String name;
+        @Field int balance;
+        @Field double score;
+        @Field Rank rank = Rank.MEMBER;
+        @Field @Serializable List<String> tags = new ArrayList<>();
+        
+        Account() { }
+        
+        Account(String id, String name, int balance) {
+            this.id = id;
+            this.name = name;
+            this.balance = balance;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database.impl.redis;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulRedisConnection;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the {@link Redis} connection lifecycle,
+ * against an embedded Redis server.
+ *
+ * @author Braydon
+ */
+public final class RedisTests {
+    private RedisServer server;
+    private Redis redis;
+    
+    @BeforeEach
+    void setup() throws IOException {
+        server = RedisServer.newRedisServer().start();
+        redis = new Redis();
+    }
+    
+    @AfterEach
+    void teardown() throws IOException {
+        redis.close();
+        server.stop();
+    }
+    
+    @Test
+    void reconnectingClosesThePool() {
+        RedisURI uri = RedisURI.create(server.getHost(), server.getBindPort());
+        redis.connect(uri);
+        GenericObjectPool<StatefulRedisConnection<String, String>> pool = redis.getPool();
+        assertEquals("PONG", redis.withConnection(connection -> connection.sync().ping()));
+        redis.getBootstrap().close(); // Drop the connection, so we can connect again
+        
+        redis.connect(uri);
+        assertTrue(pool.isClosed());
+        assertNotSame(pool, redis.getPool());
+        assertEquals("PONG", redis.withConnection(connection -> connection.sync().ping()));
+    }
+}
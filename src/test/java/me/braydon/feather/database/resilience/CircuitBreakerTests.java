@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.database.resilience;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link CircuitBreaker}.
+ *
+ * @author Braydon
+ */
+public final class CircuitBreakerTests {
+    private CircuitBreaker circuitBreaker;
+    
+    @BeforeEach
+    void setup() {
+        circuitBreaker = new CircuitBreaker("Test");
+        circuitBreaker.setFailureThreshold(2);
+        circuitBreaker.setOpenDuration(0L, TimeUnit.MILLISECONDS);
+    }
+    
+    @Test
+    void opensAfterFailuresInARow() {
+        circuitBreaker.onFailure();
+        circuitBreaker.onSuccess(); // Resets the count
+        circuitBreaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        circuitBreaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+    
+    @Test
+    void letsASingleTrialThrough() {
+        open();
+        circuitBreaker.acquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertThrows(CircuitBreakerOpenException.class, circuitBreaker::acquire);
+        
+        circuitBreaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+    
+    @Test
+    void failedTrialsReopen() {
+        open();
+        circuitBreaker.acquire();
+        circuitBreaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+    
+    @Test
+    void releasedTrialsLetTheNextTrialThrough() throws InterruptedException {
+        circuitBreaker.setOpenDuration(100L, TimeUnit.MILLISECONDS);
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        assertThrows(CircuitBreakerOpenException.class, circuitBreaker::acquire);
+        TimeUnit.MILLISECONDS.sleep(150L);
+        
+        circuitBreaker.acquire();
+        circuitBreaker.release(); // The trial failed locally
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        circuitBreaker.acquire(); // Without waiting out the open duration again
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+    
+    @Test
+    void releaseDoesNothingWhileClosed() {
+        circuitBreaker.release();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+    
+    /**
+     * Open the breaker, with the open duration already over.
+     */
+    private void open() {
+        circuitBreaker.setOpenDuration(0L, TimeUnit.MILLISECONDS);
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link Histogram}.
+ *
+ * @author Braydon
+ */
+public final class HistogramTests {
+    @Test
+    void emptyHistogramsReportZero() {
+        Histogram histogram = new Histogram();
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getMin());
+        assertEquals(0L, histogram.getMax());
+        assertEquals(0D, histogram.getMean());
+        assertEquals(0L, histogram.getValueAtPercentile(99D));
+    }
+    
+    @Test
+    void percentilesStayWithinPrecision() {
+        Histogram histogram = new Histogram();
+        for (long value = 1L; value <= 100_000L; value++) {
+            histogram.record(value);
+        }
+        assertEquals(100_000L, histogram.getCount());
+        assertEquals(1L, histogram.getMin());
+        assertEquals(100_000L, histogram.getMax());
+        assertEquals(50_000.5D, histogram.getMean());
+        assertEquals(50_000L, histogram.getValueAtPercentile(50D), 50_000L * 0.04D);
+        assertEquals(99_000L, histogram.getValueAtPercentile(99D), 99_000L * 0.04D);
+        assertEquals(100_000L, histogram.getValueAtPercentile(100D));
+    }
+    
+    @Test
+    void smallAndNegativeValuesAreExact() {
+        Histogram histogram = new Histogram();
+        histogram.record(-5L);
+        histogram.record(3L);
+        histogram.record(7L);
+        assertEquals(0L, histogram.getMin());
+        assertEquals(3L, histogram.getValueAtPercentile(50D));
+        assertEquals(7L, histogram.getValueAtPercentile(100D));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.metrics;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.lettuce.core.RedisURI;
+import me.braydon.feather.annotation.Field;
+import me.braydon.feather.annotation.Id;
+import me.braydon.feather.database.impl.redis.Redis;
+import me.braydon.feather.database.impl.redis.RedisRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link InMemoryMetricsRegistry}, recording
+ * a repository on an embedded Redis server.
+ *
+ * @author Braydon
+ */
+public final class InMemoryMetricsRegistryTests {
+    private RedisServer server;
+    private Redis redis;
+    
+    @BeforeEach
+    void setup() throws IOException {
+        server = RedisServer.newRedisServer().start();
+        redis = new Redis();
+        redis.connect(RedisURI.create(server.getHost(), server.getBindPort()));
+    }
+    
+    @AfterEach
+    void teardown() throws IOException {
+        redis.close();
+        server.stop();
+    }
+    
+    @Test
+    void repositoriesRecordTheirOperations() {
+        InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry();
+        redis.setMetrics(registry);
+        RedisRepository<String, Account> repository = redis.newRepository(Account.class, "accounts");
+        repository.saveAll(new Account("a", 1), new Account("b", 2));
+        repository.find("a");
+        
+        InMemoryMetricsRegistry.OperationMetrics saves = registry.getOperations().get(new InMemoryMetricsRegistry.Key("accounts", "saveAll"));
+        assertEquals(1L, saves.getLatency().getCount());
+        assertEquals(0L, saves.getErrors());
+        assertEquals(2L, registry.getBatchSizes().get(new InMemoryMetricsRegistry.Key("accounts", "saveAll")).getMax());
+        assertEquals(1L, registry.getMappings().get(new InMemoryMetricsRegistry.Key("accounts", "read")).getCount());
+        assertEquals(2L, registry.getMappings().get(new InMemoryMetricsRegistry.Key("accounts", "write")).getCount());
+        assertTrue(registry.getBytes("accounts", "write") > 0L);
+        assertTrue(registry.scrape().contains("feather_operation_nanoseconds_count{repository=\"accounts\",operation=\"find\"} 1\n"));
+    }
+    
+    static final class Account {
+        @Id @Field String id;
+        @Field int balance;
+        
+        Account() { }
+        
+        Account(String id, int balance) {
+            this.id = id;
+            this.balance = balance;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2023 Braydon (Rainnny). All rights reserved.
+ *
+ * For inquiries, please contact braydonrainnny@gmail.com
+ */
+package me.braydon.feather.serialization;
+
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link GsonSerializer}.
+ *
+ * @author Braydon
+ */
+public final class GsonSerializerTests {
+    private final Serializer serializer = new GsonSerializer();
+    
+    @Test
+    void genericCollectionsRoundTrip() {
+        Type type = new TypeToken<List<Point>>() {}.getType();
+        List<Point> points = Arrays.asList(new Point(1, 2), new Point(-3, 4));
+        
+        String serialized = serializer.serialize(points);
+        assertEquals("[{\"x\":1,\"y\":2},{\"x\":-3,\"y\":4}]", serialized);
+        @SuppressWarnings("unchecked") List<Point> deserialized = (List<Point>) serializer.deserialize(serialized, type);
+        assertEquals(2, deserialized.size());
+        assertEquals(-3, deserialized.get(1).x); // Elements keep their type, rather than becoming maps
+    }
+    
+    static final class Point {
+        int x;
+        int y;
+        
+        Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+}
\ No newline at end of file